@@ -99,6 +99,7 @@ spotless {
 }
 
 val quarkusPlatformVersion = "3.37.0"
+val brotli4jVersion = "1.18.0"
 val gsonVersion = "2.14.0"
 val junitVersion = "6.1.0"
 val mockitoVersion = "5.23.0"
@@ -114,6 +115,7 @@ dependencies {
     implementation("io.quarkus:quarkus-jdbc-postgresql")    // PostgreSQL + Dev Services
     implementation("io.quarkus:quarkus-flyway")             // DB migrations on startup
     implementation("io.quarkus:quarkus-scheduler")          // @Scheduled background tasks
+    implementation("io.quarkus:quarkus-micrometer-registry-prometheus") // metrics at /q/metrics
     implementation("org.flywaydb:flyway-database-postgresql")
     // JDBI — framework-agnostic, wires against any DataSource
     implementation("org.jdbi:jdbi3-core:3.53.0")
@@ -122,6 +124,12 @@ dependencies {
     // Gson — used by GithubApiClient
     implementation("com.google.code.gson:gson:$gsonVersion")
 
+    // Brotli4j — brotli-compresses the map listing snapshot. The JNI binary is per-platform; the
+    // Linux ones cover the Docker image; elsewhere the listing is served without brotli.
+    implementation("com.aayushatharva.brotli4j:brotli4j:$brotli4jVersion")
+    runtimeOnly("com.aayushatharva.brotli4j:native-linux-x86_64:$brotli4jVersion")
+    runtimeOnly("com.aayushatharva.brotli4j:native-linux-aarch64:$brotli4jVersion")
+
     // SnakeYAML Engine — used by MapNameReader to parse map.yml files
     implementation("org.snakeyaml:snakeyaml-engine:2.10")
 
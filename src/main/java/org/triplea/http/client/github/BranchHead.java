@@ -0,0 +1,19 @@
+package org.triplea.http.client.github;
+
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Value;
+
+/// The head commit of a repository's default branch, as listed by
+/// [GithubClient#fetchDefaultBranchHeads].
+@Value
+@Builder
+public class BranchHead {
+  /// The repo's web URL, matching [MapRepoListing#getUri].
+  String repoUri;
+
+  String branch;
+
+  /// The commit's author date, the same date [GithubClient#getLatestCommitDate] returns.
+  Instant lastCommitDate;
+}
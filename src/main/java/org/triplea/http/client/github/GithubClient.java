@@ -12,16 +12,34 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.OptionalLong;
 import javax.annotation.Nonnull;
 import org.slf4j.Logger;
+import org.triplea.http.client.github.GithubResponseCache.CachedResponse;
 
 /// Can be used to interact with GitHub's webservice API.
+///
+/// Every request goes through one [GithubRateLimiter] per client, so the client can be shared by
+/// concurrent callers without them exceeding the API quota between them. The `X-RateLimit-*`
+/// headers of every response are fed back into the limiter, and a request rejected for exceeding a
+/// rate limit is retried once the limiter's pause is over.
+///
+/// A client built with [#buildInteractive] serves a user who is waiting on the answer, and so
+/// never waits for the limiter: it may spend the reserve that other clients leave untouched, and
+/// when even that is gone it throws [GithubRateLimitedException] straight away.
+///
+/// Every GET is made conditional on the ETag and Last-Modified of the response stored for it in
+/// the client's [GithubResponseCache], and a `304 Not Modified` is answered from that cache. GitHub
+/// does not count 304s against the rate limit, so re-reading unchanged repositories is free.
 public class GithubClient {
 
   private static final Logger log = getLogger(GithubClient.class);
@@ -29,14 +47,45 @@ public class GithubClient {
   /// Max authenticated api requests per hour [2026-April]
   public static final int GITHUB_MAX_REQUESTS_PER_HOUR = 5000;
 
-  /// Minimum ms between requests to stay within the hourly rate limit.
-  public static final int GITHUB_MIN_REQUEST_INTERVAL_MS =
-      (int) (TimeUnit.HOURS.toMillis(1) / GITHUB_MAX_REQUESTS_PER_HOUR);
+  /// Max api requests per hour without an auth token [2026-April]
+  public static final int GITHUB_MAX_UNAUTHENTICATED_REQUESTS_PER_HOUR = 60;
+
+  /// How many API requests may go out back to back before the hourly rate applies.
+  public static final int GITHUB_REQUEST_BURST = 10;
+
+  /// How many times a request rejected by a rate limit is sent before giving up.
+  private static final int MAX_ATTEMPTS = 3;
+
+  /// How long to back off after a rate-limited response that says nothing about when to retry.
+  private static final Duration DEFAULT_RETRY_DELAY = Duration.ofMinutes(1);
 
   private static final String LIST_REPOS_PATH = "/orgs/%s/repos?per_page=100&page=%d";
   private static final String BRANCHES_PATH = "/repos/%s/%s/branches/%s";
   private static final String ISSUES_PATH = "/repos/%s/%s/issues";
   private static final String LATEST_RELEASE_PATH = "/repos/%s/%s/releases/latest";
+  private static final String GRAPHQL_PATH = "/graphql";
+
+  /// One page of an organization's repositories with the head commit of each default branch. 100
+  /// is the largest page GitHub's GraphQL API allows.
+  private static final String DEFAULT_BRANCH_HEADS_QUERY =
+      """
+      query($org: String!, $cursor: String) {
+        organization(login: $org) {
+          repositories(first: 100, after: $cursor) {
+            pageInfo { hasNextPage endCursor }
+            nodes {
+              url
+              defaultBranchRef {
+                name
+                target { ... on Commit { authoredDate } }
+              }
+            }
+          }
+        }
+      }
+      """;
+
+  private static final URI GITHUB_API_URI = URI.create("https://api.github.com");
 
   private static final Gson GSON = new Gson();
 
@@ -44,20 +93,65 @@ public class GithubClient {
   private final URI baseUri;
   private final String authToken;
   private final String org;
+  private final GithubRateLimiter rateLimiter;
+  private final GithubResponseCache responseCache;
+  private final boolean interactive;
 
-  private GithubClient(@Nonnull URI baseUri, String authToken, @Nonnull String org) {
+  private GithubClient(
+      @Nonnull URI baseUri,
+      String authToken,
+      @Nonnull String org,
+      @Nonnull GithubResponseCache responseCache,
+      boolean interactive) {
     this.httpClient = HttpClient.newHttpClient();
     this.baseUri = baseUri;
     this.authToken = authToken;
     this.org = org;
+    this.responseCache = responseCache;
+    this.interactive = interactive;
+    this.rateLimiter =
+        new GithubRateLimiter(
+            hasAuthToken()
+                ? GITHUB_MAX_REQUESTS_PER_HOUR
+                : GITHUB_MAX_UNAUTHENTICATED_REQUESTS_PER_HOUR,
+            GITHUB_REQUEST_BURST);
   }
 
   public static GithubClient build(String authToken, @Nonnull String org) {
-    return new GithubClient(URI.create("https://api.github.com"), authToken, org);
+    return build(authToken, org, GithubResponseCache.NONE);
+  }
+
+  public static GithubClient build(
+      String authToken, @Nonnull String org, @Nonnull GithubResponseCache responseCache) {
+    return new GithubClient(GITHUB_API_URI, authToken, org, responseCache, false);
+  }
+
+  /// Builds a client for requests a user is waiting on, which fail with
+  /// [GithubRateLimitedException] rather than wait for the rate limit.
+  public static GithubClient buildInteractive(String authToken, @Nonnull String org) {
+    return buildInteractive(GITHUB_API_URI, authToken, org);
+  }
+
+  public static GithubClient buildInteractive(
+      @Nonnull URI baseUri, String authToken, @Nonnull String org) {
+    return new GithubClient(baseUri, authToken, org, GithubResponseCache.NONE, true);
   }
 
   public static GithubClient build(@Nonnull URI baseUri, String authToken, @Nonnull String org) {
-    return new GithubClient(baseUri, authToken, org);
+    return build(baseUri, authToken, org, GithubResponseCache.NONE);
+  }
+
+  public static GithubClient build(
+      @Nonnull URI baseUri,
+      String authToken,
+      @Nonnull String org,
+      @Nonnull GithubResponseCache responseCache) {
+    return new GithubClient(baseUri, authToken, org, responseCache, false);
+  }
+
+  /// The limiter pacing this client's requests, for monitoring.
+  public GithubRateLimiter rateLimiter() {
+    return rateLimiter;
   }
 
   /// Returns a listing of the repositories within a github organization. This call handles paging,
@@ -90,6 +184,51 @@ public class GithubClient {
     return GSON.fromJson(sendGet(path), BranchInfoResponse.class).getLastCommitDate();
   }
 
+  /// Whether [#fetchDefaultBranchHeads] can be used: GitHub's GraphQL API only serves
+  /// authenticated requests.
+  public boolean supportsGraphql() {
+    return hasAuthToken();
+  }
+
+  /// Returns the head commit of the default branch of every repository in the organization, using
+  /// one GraphQL request per 100 repositories where the REST API needs a branch request per
+  /// repository. Repositories without a default branch (empty repos) are left out.
+  public List<BranchHead> fetchDefaultBranchHeads() {
+    List<BranchHead> heads = new ArrayList<>();
+    String cursor = null;
+    do {
+      Map<String, Object> variables = new HashMap<>();
+      variables.put("org", org);
+      variables.put("cursor", cursor);
+      RepositoryHeadsResponse response =
+          GSON.fromJson(
+              sendPost(
+                  GRAPHQL_PATH,
+                  Map.of("query", DEFAULT_BRANCH_HEADS_QUERY, "variables", variables)),
+              RepositoryHeadsResponse.class);
+      if (response.errors != null && !response.errors.isEmpty()) {
+        throw new RuntimeException("GitHub GraphQL query failed: " + response.errors);
+      }
+      if (response.data == null || response.data.organization == null) {
+        throw new RuntimeException("GitHub organization not found: " + org);
+      }
+      RepositoryHeadsResponse.Repositories repositories = response.data.organization.repositories;
+      for (RepositoryHeadsResponse.Repository repository : repositories.nodes) {
+        RepositoryHeadsResponse.Ref branch = repository.defaultBranchRef;
+        if (branch != null && branch.target != null && branch.target.authoredDate != null) {
+          heads.add(
+              BranchHead.builder()
+                  .repoUri(repository.url)
+                  .branch(branch.name)
+                  .lastCommitDate(Instant.parse(branch.target.authoredDate))
+                  .build());
+        }
+      }
+      cursor = repositories.pageInfo.hasNextPage ? repositories.pageInfo.endCursor : null;
+    } while (cursor != null);
+    return heads;
+  }
+
   public BranchInfoResponse fetchBranchInfo(String repo, String branch) {
     String path =
         String.format(BRANCHES_PATH, encodePath(org), encodePath(repo), encodePath(branch));
@@ -115,54 +254,106 @@ public class GithubClient {
     return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
   }
 
+  private boolean hasAuthToken() {
+    return authToken != null && !authToken.isEmpty();
+  }
+
   private String sendGet(String path) {
     HttpRequest.Builder builder = HttpRequest.newBuilder().uri(baseUri.resolve(path)).GET();
-    if (authToken != null && !authToken.isEmpty()) {
-      builder.header("Authorization", "token " + authToken);
+    Optional<CachedResponse> cached = cachedResponse(path);
+    cached.ifPresent(
+        response -> {
+          if (response.etag() != null) {
+            builder.header("If-None-Match", response.etag());
+          }
+          if (response.lastModified() != null) {
+            builder.header("If-Modified-Since", response.lastModified());
+          }
+        });
+    HttpResponse<String> response = send(path, builder);
+    if (response.statusCode() == 304 && cached.isPresent()) {
+      return cached.get().body();
     }
-    try {
-      HttpResponse<String> response =
-          httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
-      if (response.statusCode() < 200 || response.statusCode() >= 300) {
-        throw new RuntimeException(
-            "GitHub API request to "
-                + path
-                + " failed with status "
-                + response.statusCode()
-                + ": "
-                + response.body());
-      }
-      return response.body();
-    } catch (IOException e) {
-      throw new RuntimeException("GitHub API request failed: " + path, e);
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new RuntimeException("GitHub API request interrupted: " + path, e);
+    String body = successBody(path, response);
+    Optional<String> etag = response.headers().firstValue("ETag");
+    Optional<String> lastModified = response.headers().firstValue("Last-Modified");
+    if (etag.isPresent() || lastModified.isPresent()) {
+      storeResponse(path, new CachedResponse(etag.orElse(null), lastModified.orElse(null), body));
     }
+    return body;
   }
 
   private String sendPost(String path, Object body) {
-    HttpRequest.Builder builder =
-        HttpRequest.newBuilder()
-            .uri(baseUri.resolve(path))
-            .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(body)));
-    if (authToken != null && !authToken.isEmpty()) {
+    return successBody(
+        path,
+        send(
+            path,
+            HttpRequest.newBuilder()
+                .uri(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(body)))));
+  }
+
+  /// The stored response for `path`. The cache only saves quota, so if it cannot be read the
+  /// request is simply sent unconditionally.
+  private Optional<CachedResponse> cachedResponse(String path) {
+    try {
+      return responseCache.get(path);
+    } catch (RuntimeException e) {
+      log.warn("Failed to read the cached GitHub response for {}", path, e);
+      return Optional.empty();
+    }
+  }
+
+  private void storeResponse(String path, CachedResponse response) {
+    try {
+      responseCache.put(path, response);
+    } catch (RuntimeException e) {
+      log.warn("Failed to cache the GitHub response for {}", path, e);
+    }
+  }
+
+  private static String successBody(String path, HttpResponse<String> response) {
+    if (response.statusCode() < 200 || response.statusCode() >= 300) {
+      throw new RuntimeException(
+          "GitHub API request to "
+              + path
+              + " failed with status "
+              + response.statusCode()
+              + ": "
+              + response.body());
+    }
+    return response.body();
+  }
+
+  /// Sends `builder`'s request once the limiter allows it, retrying while it is rejected by a rate
+  /// limit, and returns the final response whatever its status. An interactive client neither
+  /// waits nor retries, and throws [GithubRateLimitedException] instead.
+  private HttpResponse<String> send(String path, HttpRequest.Builder builder) {
+    if (hasAuthToken()) {
       builder.header("Authorization", "token " + authToken);
     }
+    HttpRequest request = builder.build();
     try {
-      HttpResponse<String> response =
-          httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
-      if (response.statusCode() < 200 || response.statusCode() >= 300) {
-        throw new RuntimeException(
-            "GitHub API request to "
-                + path
-                + " failed with status "
-                + response.statusCode()
-                + ": "
-                + response.body());
+      for (int attempt = 1; ; attempt++) {
+        if (!interactive) {
+          rateLimiter.acquire();
+        } else if (!rateLimiter.tryAcquire()) {
+          throw new GithubRateLimitedException(path, rateLimiter.pausedFor());
+        }
+        HttpResponse<String> response =
+            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Optional<Duration> retryAfter = applyRateLimitHeaders(response);
+        if (retryAfter.isPresent() && interactive) {
+          throw new GithubRateLimitedException(path, retryAfter.get());
+        }
+        if (retryAfter.isPresent() && attempt < MAX_ATTEMPTS) {
+          log.warn(
+              "GitHub API request to {} was rate limited, retrying in {}", path, retryAfter.get());
+          continue;
+        }
+        return response;
       }
-      return response.body();
     } catch (IOException e) {
       throw new RuntimeException("GitHub API request failed: " + path, e);
     } catch (InterruptedException e) {
@@ -170,4 +361,48 @@ public class GithubClient {
       throw new RuntimeException("GitHub API request interrupted: " + path, e);
     }
   }
+
+  /// Feeds the rate limit headers of `response` to the limiter, unless they describe a quota other
+  /// than the REST API's (GraphQL requests are counted against their own). If the request was
+  /// itself rejected by a rate limit (a 429, or a 403 that carries `Retry-After` or an exhausted
+  /// quota), pauses the limiter and returns the delay before it may be retried.
+  private Optional<Duration> applyRateLimitHeaders(HttpResponse<?> response) {
+    OptionalLong limit = longHeader(response, "X-RateLimit-Limit");
+    OptionalLong remaining = longHeader(response, "X-RateLimit-Remaining");
+    OptionalLong reset = longHeader(response, "X-RateLimit-Reset");
+    OptionalLong retryAfter = longHeader(response, "Retry-After");
+    Optional<Duration> untilReset =
+        reset.isPresent()
+            ? Optional.of(Duration.between(Instant.now(), Instant.ofEpochSecond(reset.getAsLong())))
+            : Optional.empty();
+    boolean restQuota =
+        response.headers().firstValue("X-RateLimit-Resource").map("core"::equals).orElse(true);
+    if (restQuota && limit.isPresent() && remaining.isPresent() && untilReset.isPresent()) {
+      rateLimiter.update((int) limit.getAsLong(), (int) remaining.getAsLong(), untilReset.get());
+    }
+
+    int status = response.statusCode();
+    boolean rateLimited =
+        status == 429
+            || (status == 403
+                && (retryAfter.isPresent()
+                    || (remaining.isPresent() && remaining.getAsLong() == 0)));
+    if (!rateLimited) {
+      return Optional.empty();
+    }
+    Duration delay =
+        retryAfter.isPresent()
+            ? Duration.ofSeconds(retryAfter.getAsLong())
+            : untilReset.orElse(DEFAULT_RETRY_DELAY);
+    rateLimiter.pause(delay);
+    return Optional.of(delay);
+  }
+
+  private static OptionalLong longHeader(HttpResponse<?> response, String name) {
+    try {
+      return response.headers().firstValueAsLong(name);
+    } catch (NumberFormatException e) {
+      return OptionalLong.empty();
+    }
+  }
 }
@@ -0,0 +1,17 @@
+package org.triplea.http.client.github;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/// Thrown by an interactive [GithubClient] (see [GithubClient#buildInteractive]) when a request
+/// cannot be sent now because of GitHub's rate limit, instead of waiting for it to lift. The caller
+/// should ask its own client to try again after [#getRetryAfter].
+@Getter
+public class GithubRateLimitedException extends RuntimeException {
+  private final Duration retryAfter;
+
+  public GithubRateLimitedException(String path, Duration retryAfter) {
+    super("GitHub API request to " + path + " is rate limited, retry in " + retryAfter);
+    this.retryAfter = retryAfter;
+  }
+}
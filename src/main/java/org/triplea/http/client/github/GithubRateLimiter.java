@@ -0,0 +1,172 @@
+package org.triplea.http.client.github;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/// Token bucket shared by every caller of one [GithubClient], so that concurrent callers together
+/// stay within GitHub's API quota.
+///
+/// The bucket holds up to `burst` tokens and refills continuously. Each request takes one token;
+/// when none is left the caller waits exactly until its token will have been refilled. Waits are
+/// reserved under the lock before sleeping, so callers are served in arrival order and the bucket
+/// never lends out the same token twice.
+///
+/// The refill rate starts at the documented hourly limit and then follows what GitHub reports on
+/// each response (see [#update]): the remaining quota is spread evenly over the time left until
+/// it resets, so the limiter speeds up when quota is plentiful and slows down when something else
+/// is spending the same token. When the quota is nearly exhausted, or GitHub asks for a
+/// `Retry-After` delay, it pauses every caller until then (see [#pause]).
+///
+/// Interactive callers, such as a user submitting an error report, use [#tryAcquire] instead: it
+/// never waits, and it may spend the reserve that [#acquire] leaves untouched.
+public class GithubRateLimiter {
+  private static final long HOUR_NANOS = TimeUnit.HOURS.toNanos(1);
+
+  private final double burst;
+  private final LongSupplier nanoClock;
+
+  private double tokens;
+  private double tokensPerNano;
+  private long refilledAtNanos;
+  private long pausedUntilNanos;
+
+  /// Until when [#acquire] holds off to leave the reserve to [#tryAcquire].
+  private long reservedUntilNanos;
+
+  private int limit;
+  private int remaining = -1;
+
+  public GithubRateLimiter(int requestsPerHour, int burst) {
+    this(requestsPerHour, burst, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  GithubRateLimiter(int requestsPerHour, int burst, LongSupplier nanoClock) {
+    this.burst = burst;
+    this.nanoClock = nanoClock;
+    this.limit = requestsPerHour;
+    this.tokensPerNano = requestsPerHour / (double) HOUR_NANOS;
+    this.tokens = burst;
+    this.refilledAtNanos = nanoClock.getAsLong();
+    this.pausedUntilNanos = refilledAtNanos;
+    this.reservedUntilNanos = refilledAtNanos;
+  }
+
+  /// Takes a token, first waiting for one if the bucket is empty or the limiter is paused.
+  public void acquire() throws InterruptedException {
+    long waitNanos = reserve();
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+
+  /// Takes a token for an interactive request if one can be sent right now, and returns false
+  /// otherwise, while GitHub has asked to wait or the quota is spent. Unlike [#acquire] it never
+  /// waits and may use up the reserve; the token it takes (possibly going into debt) slows the
+  /// waiting callers down instead.
+  public synchronized boolean tryAcquire() {
+    long now = nanoClock.getAsLong();
+    if (now < pausedUntilNanos) {
+      return false;
+    }
+    refill(now);
+    tokens -= 1;
+    return true;
+  }
+
+  /// Takes a token, possibly going into debt, and returns how long the caller must wait before
+  /// using it.
+  @VisibleForTesting
+  synchronized long reserve() {
+    long now = nanoClock.getAsLong();
+    long start = Math.max(now, Math.max(pausedUntilNanos, reservedUntilNanos));
+    refill(start);
+    tokens -= 1;
+    long waitNanos = start - now;
+    return tokens >= 0 ? waitNanos : waitNanos + (long) Math.ceil(-tokens / tokensPerNano);
+  }
+
+  /// Adjusts to the quota GitHub reported on a response: `limit` requests per window, of which
+  /// `remaining` are left until the window resets `untilReset` from now.
+  ///
+  /// A reserve of 1% of the limit (at least one request) is left to interactive callers
+  /// ([#tryAcquire]). Once only the reserve is left, [#acquire] waits until the reset; once the
+  /// quota is spent, every caller does.
+  public synchronized void update(int limit, int remaining, Duration untilReset) {
+    long now = nanoClock.getAsLong();
+    refill(now);
+    this.limit = limit;
+    this.remaining = remaining;
+    int spendable = remaining - Math.max(1, limit / 100);
+    if (remaining <= 0) {
+      pauseFor(now, untilReset);
+    } else if (spendable <= 0) {
+      reservedUntilNanos = Math.max(reservedUntilNanos, now + Math.max(0, untilReset.toNanos()));
+      tokens = Math.min(tokens, 0);
+      tokensPerNano = limit / (double) HOUR_NANOS;
+    } else if (untilReset.isNegative() || untilReset.isZero()) {
+      // The window has already rolled over; fall back to the hourly rate until the next report.
+      tokensPerNano = limit / (double) HOUR_NANOS;
+    } else {
+      tokens = Math.min(tokens, spendable);
+      tokensPerNano = spendable / (double) untilReset.toNanos();
+    }
+  }
+
+  /// Holds every caller for `delay`, as asked by a `Retry-After` header or a rejected request.
+  public synchronized void pause(Duration delay) {
+    long now = nanoClock.getAsLong();
+    refill(now);
+    pauseFor(now, delay);
+  }
+
+  /// Pauses until `delay` from `now`. The quota is fresh at that point, so the bucket refills at
+  /// the plain hourly rate while paused and callers resume with a full burst.
+  private void pauseFor(long now, Duration delay) {
+    pausedUntilNanos = Math.max(pausedUntilNanos, now + Math.max(0, delay.toNanos()));
+    tokens = Math.min(tokens, 0);
+    tokensPerNano = limit / (double) HOUR_NANOS;
+  }
+
+  private void refill(long at) {
+    if (at > refilledAtNanos) {
+      tokens = Math.min(burst, tokens + (at - refilledAtNanos) * tokensPerNano);
+      refilledAtNanos = at;
+    }
+  }
+
+  /// The request limit per window GitHub last reported, or the configured hourly limit before the
+  /// first report.
+  public synchronized int limit() {
+    return limit;
+  }
+
+  /// The remaining quota GitHub last reported, or -1 before the first report.
+  public synchronized int remaining() {
+    return remaining;
+  }
+
+  /// Tokens in the bucket now; negative while callers are queued waiting for refills.
+  public synchronized double tokens() {
+    long now = nanoClock.getAsLong();
+    if (now < Math.max(pausedUntilNanos, reservedUntilNanos)) {
+      return tokens;
+    }
+    refill(now);
+    return tokens;
+  }
+
+  /// The current refill rate, in requests per hour.
+  public synchronized double requestsPerHour() {
+    return tokensPerNano * HOUR_NANOS;
+  }
+
+  /// How long until [#acquire] stops waiting for a pause or for the reserve to refill; zero when
+  /// not paused.
+  public synchronized Duration pausedFor() {
+    return Duration.ofNanos(
+        Math.max(0, Math.max(pausedUntilNanos, reservedUntilNanos) - nanoClock.getAsLong()));
+  }
+}
@@ -0,0 +1,42 @@
+package org.triplea.http.client.github;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+
+/// Publishes a [GithubRateLimiter]'s state as gauges, tagged with the name of the client it paces
+/// (the indexer and error reporting each have their own).
+@AllArgsConstructor
+public class GithubRateLimiterMetrics implements MeterBinder {
+  private final GithubRateLimiter rateLimiter;
+  private final String client;
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Tags tags = Tags.of("client", client);
+    Gauge.builder("github.rate_limit.limit", rateLimiter, GithubRateLimiter::limit)
+        .description("Requests per window GitHub last reported for the token")
+        .tags(tags)
+        .register(registry);
+    Gauge.builder("github.rate_limit.remaining", rateLimiter, GithubRateLimiter::remaining)
+        .description("Requests left in the window as GitHub last reported, -1 before any report")
+        .tags(tags)
+        .register(registry);
+    Gauge.builder("github.rate_limit.tokens", rateLimiter, GithubRateLimiter::tokens)
+        .description("Requests that may go out now without waiting; negative while queued")
+        .tags(tags)
+        .register(registry);
+    Gauge.builder("github.rate_limit.rate", rateLimiter, GithubRateLimiter::requestsPerHour)
+        .description("Requests per hour the limiter currently allows")
+        .tags(tags)
+        .register(registry);
+    Gauge.builder(
+            "github.rate_limit.paused", rateLimiter, limiter -> limiter.pausedFor().toMillis())
+        .description("Time until requests resume after a rate limit pause")
+        .baseUnit("milliseconds")
+        .tags(tags)
+        .register(registry);
+  }
+}
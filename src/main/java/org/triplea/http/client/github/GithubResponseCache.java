@@ -0,0 +1,30 @@
+package org.triplea.http.client.github;
+
+import java.util.Optional;
+
+/// Remembers GitHub API response bodies with their validators, so that [GithubClient] can make
+/// every GET conditional. GitHub answers an unchanged resource with `304 Not Modified`, which does
+/// not count against the rate limit, and the client then serves the cached body.
+///
+/// Entries are keyed by request path (including the query string). Implementations are used by
+/// concurrent callers and must be thread-safe.
+public interface GithubResponseCache {
+  /// A cache that stores nothing, so every request is unconditional.
+  GithubResponseCache NONE =
+      new GithubResponseCache() {
+        @Override
+        public Optional<CachedResponse> get(String path) {
+          return Optional.empty();
+        }
+
+        @Override
+        public void put(String path, CachedResponse response) {}
+      };
+
+  Optional<CachedResponse> get(String path);
+
+  void put(String path, CachedResponse response);
+
+  /// A response body with the validators GitHub sent for it; either validator may be null.
+  record CachedResponse(String etag, String lastModified, String body) {}
+}
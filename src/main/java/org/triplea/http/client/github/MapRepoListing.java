@@ -2,12 +2,13 @@ package org.triplea.http.client.github;
 
 import com.google.gson.annotations.SerializedName;
 import java.net.URI;
+import java.time.Instant;
 import lombok.Builder;
 import lombok.Value;
 
 /// Response object from Github listing the details of an organization's repositories.
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class MapRepoListing {
   @SerializedName("html_url")
   String uri;
@@ -15,6 +16,14 @@ public class MapRepoListing {
   @SerializedName("default_branch")
   String defaultBranch;
 
+  /// When anything was last pushed to the repo, on any branch.
+  @SerializedName("pushed_at")
+  String pushedAt;
+
+  /// When the repo itself (name, default branch, description...) was last changed.
+  @SerializedName("updated_at")
+  String updatedAt;
+
   public String getName() {
     return uri.substring(uri.lastIndexOf("/") + 1);
   }
@@ -22,4 +31,24 @@ public class MapRepoListing {
   public URI getUri() {
     return URI.create(uri);
   }
+
+  public Instant getPushedAt() {
+    return pushedAt == null ? null : Instant.parse(pushedAt);
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt == null ? null : Instant.parse(updatedAt);
+  }
+
+  /// The later of [#getPushedAt] and [#getUpdatedAt]: a repo whose last change is no later than
+  /// when it was last indexed needs no further API calls to know it is unchanged. Null if Github
+  /// reported neither.
+  public Instant getLastChanged() {
+    Instant pushed = getPushedAt();
+    Instant updated = getUpdatedAt();
+    if (pushed == null || updated == null) {
+      return pushed == null ? updated : pushed;
+    }
+    return pushed.isAfter(updated) ? pushed : updated;
+  }
 }
@@ -0,0 +1,66 @@
+package org.triplea.http.client.github;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+
+/// One page of the GraphQL query behind [GithubClient#fetchDefaultBranchHeads]: the default branch
+/// head commit of up to 100 of an organization's repositories.
+@ToString
+@AllArgsConstructor
+class RepositoryHeadsResponse {
+  final Data data;
+  final List<Error> errors;
+
+  @ToString
+  @AllArgsConstructor
+  static class Data {
+    final Organization organization;
+  }
+
+  @ToString
+  @AllArgsConstructor
+  static class Organization {
+    final Repositories repositories;
+  }
+
+  @ToString
+  @AllArgsConstructor
+  static class Repositories {
+    final PageInfo pageInfo;
+    final List<Repository> nodes;
+  }
+
+  @ToString
+  @AllArgsConstructor
+  static class PageInfo {
+    final boolean hasNextPage;
+    final String endCursor;
+  }
+
+  @ToString
+  @AllArgsConstructor
+  static class Repository {
+    final String url;
+    final Ref defaultBranchRef;
+  }
+
+  @ToString
+  @AllArgsConstructor
+  static class Ref {
+    final String name;
+    final Commit target;
+  }
+
+  @ToString
+  @AllArgsConstructor
+  static class Commit {
+    final String authoredDate;
+  }
+
+  @ToString
+  @AllArgsConstructor
+  static class Error {
+    final String message;
+  }
+}
@@ -0,0 +1,163 @@
+package org.triplea.server;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.Jdbi;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/// Tells the other support-server instances sharing the database that cached data has changed,
+/// using Postgres `LISTEN`/`NOTIFY` on the application datasource, so no external broker is needed.
+///
+/// A node that changes data calls [#publish] with a topic naming what changed; every other node
+/// runs the callbacks registered for that topic with [#subscribe]. A node never receives its own
+/// notifications, since it has already updated its caches when it publishes.
+///
+/// Each node holds one pooled connection for the `LISTEN`. If that connection drops, the listener
+/// reconnects with exponential backoff and then runs every subscriber once, because any
+/// notifications sent while it was disconnected are lost.
+@ApplicationScoped
+@Slf4j
+public class CacheInvalidationBus {
+  @VisibleForTesting static final String CHANNEL = "support_cache_invalidation";
+
+  private static final int POLL_MILLIS = 5_000;
+  private static final long MIN_BACKOFF_MILLIS = 1_000;
+  private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+  @Inject AgroalDataSource dataSource;
+  @Inject Jdbi jdbi;
+
+  /// Identifies this process in the notification payload, so it can skip its own notifications.
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private final Map<String, List<Runnable>> subscribers = new ConcurrentHashMap<>();
+
+  private volatile boolean running;
+  private Thread listener;
+
+  void onStart(@Observes StartupEvent event) {
+    running = true;
+    listener = new Thread(this::listen, "cache-invalidation-listener");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  @PreDestroy
+  void stop() {
+    running = false;
+    if (listener != null) {
+      listener.interrupt();
+    }
+  }
+
+  /// Registers `onChange` to run (on the listener thread) whenever another node publishes `topic`.
+  /// It should only drop or mark stale the affected entries; rebuilding belongs to the next read.
+  public void subscribe(String topic, Runnable onChange) {
+    subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(onChange);
+  }
+
+  /// Notifies the other nodes that the data behind `topic` changed. Call once the change is
+  /// committed and visible to them.
+  public void publish(String topic) {
+    jdbi.useHandle(
+        handle ->
+            handle
+                .createQuery("select pg_notify(:channel, :payload)")
+                .bind("channel", CHANNEL)
+                .bind("payload", nodeId + ":" + topic)
+                .mapTo(String.class)
+                .one());
+  }
+
+  /// Runs the subscribers for a notification payload of the form `<node id>:<topic>`, unless this
+  /// node sent it.
+  @VisibleForTesting
+  void dispatch(String payload) {
+    int separator = payload.indexOf(':');
+    if (separator < 0) {
+      log.warn("Ignoring malformed cache invalidation: {}", payload);
+      return;
+    }
+    if (payload.substring(0, separator).equals(nodeId)) {
+      return;
+    }
+    subscribers
+        .getOrDefault(payload.substring(separator + 1), List.of())
+        .forEach(CacheInvalidationBus::runSubscriber);
+  }
+
+  private void dispatchToAll() {
+    subscribers.values().forEach(topic -> topic.forEach(CacheInvalidationBus::runSubscriber));
+  }
+
+  private static void runSubscriber(Runnable subscriber) {
+    try {
+      subscriber.run();
+    } catch (RuntimeException e) {
+      log.error("Cache invalidation subscriber failed", e);
+    }
+  }
+
+  private void listen() {
+    long backoffMillis = MIN_BACKOFF_MILLIS;
+    boolean reconnecting = false;
+    while (running) {
+      try (Connection connection = dataSource.getConnection()) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("listen " + CHANNEL);
+        }
+        if (reconnecting) {
+          log.info("Cache invalidation listener reconnected, invalidating all subscribers");
+          dispatchToAll();
+        }
+        backoffMillis = MIN_BACKOFF_MILLIS;
+        reconnecting = true;
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try {
+          while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+            if (notifications != null) {
+              for (PGNotification notification : notifications) {
+                dispatch(notification.getParameter());
+              }
+            }
+          }
+        } finally {
+          // The connection goes back to the pool, which must not hand out a listening connection.
+          try (Statement statement = connection.createStatement()) {
+            statement.execute("unlisten *");
+          }
+        }
+      } catch (SQLException e) {
+        if (!running) {
+          return;
+        }
+        log.warn(
+            "Cache invalidation listener lost its connection, retrying in {} ms", backoffMillis, e);
+        try {
+          Thread.sleep(backoffMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        reconnecting = true;
+      }
+    }
+  }
+}
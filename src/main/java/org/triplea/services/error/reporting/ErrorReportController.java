@@ -1,5 +1,6 @@
 package org.triplea.services.error.reporting;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.ext.web.RoutingContext;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -8,6 +9,7 @@ import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.ServiceUnavailableException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import java.util.Optional;
@@ -18,6 +20,8 @@ import org.triplea.http.client.ServerPaths;
 import org.triplea.http.client.error.report.ErrorReportRequest;
 import org.triplea.http.client.error.report.ErrorReportResponse;
 import org.triplea.http.client.github.GithubClient;
+import org.triplea.http.client.github.GithubRateLimitedException;
+import org.triplea.http.client.github.GithubRateLimiterMetrics;
 import org.triplea.services.error.reporting.upload.CreateIssueParams;
 import org.triplea.services.error.reporting.upload.ErrorReportModule;
 import org.triplea.utils.IpAddressExtractor;
@@ -35,6 +39,7 @@ import org.triplea.utils.IpAddressExtractor;
 public class ErrorReportController {
 
   @Inject Jdbi jdbi;
+  @Inject MeterRegistry meterRegistry;
 
   @ConfigProperty(name = "app.github-api-token")
   Optional<String> githubApiToken;
@@ -49,12 +54,18 @@ public class ErrorReportController {
 
   @PostConstruct
   void init() {
-    var githubClient = GithubClient.build(githubApiToken.orElse(""), tripleaOrgName);
+    var githubClient = GithubClient.buildInteractive(githubApiToken.orElse(""), tripleaOrgName);
+    new GithubRateLimiterMetrics(githubClient.rateLimiter(), "error-reporting")
+        .bindTo(meterRegistry);
     errorReportIngestion = ErrorReportModule.build(githubClient, errorReportingRepo, jdbi);
   }
 
   /// Endpoint where users can submit an error report, the server will use an API token of a generic
   /// user to in turn create a GitHub issue using the data from the error report.
+  ///
+  /// The user is waiting on the answer, so when GitHub's rate limit leaves no room for the issue
+  /// this answers `503 Service Unavailable` with a `Retry-After` straight away instead of holding
+  /// the request until the limit lifts.
   @POST
   public ErrorReportResponse uploadErrorReport(
       @Context RoutingContext routingContext, ErrorReportRequest errorReport) {
@@ -66,11 +77,16 @@ public class ErrorReportController {
       throw new IllegalArgumentException("Missing attribute, body, title, or game version");
     }
 
-    return errorReportIngestion.createErrorReport(
-        CreateIssueParams.builder()
-            .ip(IpAddressExtractor.extractIpAddress(routingContext))
-            .systemId(routingContext.request().getHeader(HttpHeaders.VERSION_HEADER))
-            .errorReportRequest(errorReport)
-            .build());
+    try {
+      return errorReportIngestion.createErrorReport(
+          CreateIssueParams.builder()
+              .ip(IpAddressExtractor.extractIpAddress(routingContext))
+              .systemId(routingContext.request().getHeader(HttpHeaders.VERSION_HEADER))
+              .errorReportRequest(errorReport)
+              .build());
+    } catch (GithubRateLimitedException e) {
+      throw new ServiceUnavailableException(
+          "Error reporting is busy, try again later", Math.max(1, e.getRetryAfter().toSeconds()));
+    }
   }
 }
@@ -25,6 +25,7 @@ import org.triplea.services.auth.CsrfTokenProvider;
 import org.triplea.services.auth.Identity;
 import org.triplea.services.auth.RequestIdentity;
 import org.triplea.services.auth.RequiresMapAdmin;
+import org.triplea.services.maps.listing.MapListingCache;
 
 /// Renders and edits the attribute catalog (the dimensions like "difficulty" and the allowed values
 /// within each dimension).
@@ -45,6 +46,7 @@ public class MapAttributesController {
   @Inject Jdbi jdbi;
   @Inject CsrfTokenProvider csrfTokenProvider;
   @Inject RequestIdentity requestIdentity;
+  @Inject MapListingCache mapListingCache;
 
   private MapAttributeDao dao;
 
@@ -98,6 +100,7 @@ public class MapAttributesController {
       @FormParam("name") String name,
       @HeaderParam("HX-Request") @DefaultValue("") String hxRequest) {
     dao.renameAttribute(id, name.trim());
+    mapListingCache.invalidate();
     return hxRequest.isBlank() ? redirectHome() : sectionFragment(id);
   }
 
@@ -106,6 +109,7 @@ public class MapAttributesController {
   public Response deleteAttribute(
       @PathParam("id") int id, @HeaderParam("HX-Request") @DefaultValue("") String hxRequest) {
     dao.deleteAttribute(id);
+    mapListingCache.invalidate();
     return hxRequest.isBlank() ? redirectHome() : listFragment();
   }
 
@@ -117,6 +121,7 @@ public class MapAttributesController {
       @FormParam("direction") String direction,
       @HeaderParam("HX-Request") @DefaultValue("") String hxRequest) {
     dao.moveAttribute(id, parseDirection(direction));
+    mapListingCache.invalidate();
     return hxRequest.isBlank() ? redirectHome() : listFragment();
   }
 
@@ -139,6 +144,7 @@ public class MapAttributesController {
       @FormParam("value") String value,
       @HeaderParam("HX-Request") @DefaultValue("") String hxRequest) {
     dao.renameValue(id, value.trim());
+    mapListingCache.invalidate();
     return hxRequest.isBlank()
         ? redirectHome()
         : fragment(Templates.catalogPage$valueRow(findValue(id), csrfTokenProvider.token()));
@@ -150,11 +156,13 @@ public class MapAttributesController {
       @PathParam("id") int id, @HeaderParam("HX-Request") @DefaultValue("") String hxRequest) {
     if (hxRequest.isBlank()) {
       dao.deleteValue(id);
+      mapListingCache.invalidate();
       return redirectHome();
     }
     // The value's parent must be resolved before the row is gone, to re-render its section.
     int attributeId = findValue(id).attributeId();
     dao.deleteValue(id);
+    mapListingCache.invalidate();
     return sectionFragment(attributeId);
   }
 
@@ -168,10 +176,12 @@ public class MapAttributesController {
     var parsedDirection = parseDirection(direction);
     if (hxRequest.isBlank()) {
       dao.moveValue(id, parsedDirection);
+      mapListingCache.invalidate();
       return redirectHome();
     }
     int attributeId = findValue(id).attributeId();
     dao.moveValue(id, parsedDirection);
+    mapListingCache.invalidate();
     return sectionFragment(attributeId);
   }
 
@@ -0,0 +1,57 @@
+package org.triplea.services.maps.indexing;
+
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import org.jdbi.v3.core.Jdbi;
+import org.triplea.http.client.github.GithubResponseCache;
+
+/// Keeps the map indexer's [GithubResponseCache] in the `github_response_cache` table, so the
+/// ETags it revalidates against survive restarts and are shared by every node.
+@AllArgsConstructor
+public class GithubResponseCacheDao implements GithubResponseCache {
+  private final Jdbi jdbi;
+
+  @Override
+  public Optional<CachedResponse> get(String path) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                        select etag, last_modified, body
+                          from github_response_cache
+                          where request_path = :path
+                        """)
+                .bind("path", path)
+                .map(
+                    (rs, ctx) ->
+                        new CachedResponse(
+                            rs.getString("etag"),
+                            rs.getString("last_modified"),
+                            rs.getString("body")))
+                .findOne());
+  }
+
+  @Override
+  public void put(String path, CachedResponse response) {
+    jdbi.withHandle(
+        handle ->
+            handle
+                .createUpdate(
+                    """
+                        insert into github_response_cache
+                          (request_path, etag, last_modified, body)
+                        values (:path, :etag, :lastModified, :body)
+                        on conflict (request_path) do update set
+                          etag = excluded.etag,
+                          last_modified = excluded.last_modified,
+                          body = excluded.body,
+                          date_updated = now()
+                        """)
+                .bind("path", path)
+                .bind("etag", response.etag())
+                .bind("lastModified", response.lastModified())
+                .bind("body", response.body())
+                .execute());
+  }
+}
@@ -0,0 +1,134 @@
+package org.triplea.services.maps.indexing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.triplea.http.client.github.MapRepoListing;
+
+/// Receives the map organization's Github webhook, so that a push to a map repo is indexed within
+/// seconds instead of at the next full pass.
+///
+/// Every delivery must be signed with `app.github-webhook-secret` (the `X-Hub-Signature-256`
+/// header, an HMAC-SHA256 of the raw body); the endpoint is disabled while no secret is set or map
+/// indexing is off. A `push` to a repo's default branch, or a `repository` event for one (created,
+/// renamed, default branch changed...), queues that repo on [MapIndexingScheduler#reindex], which
+/// indexes it even when its head commit has not changed. Every other event is acknowledged and
+/// ignored. Deleted repos are left to the next full pass, which
+/// disables their maps.
+@Path("/support/maps/github-webhook")
+@ApplicationScoped
+@Slf4j
+public class GithubWebhookController {
+  static final String EVENT_HEADER = "X-GitHub-Event";
+  static final String SIGNATURE_HEADER = "X-Hub-Signature-256";
+
+  @ConfigProperty(name = "app.github-webhook-secret")
+  Optional<String> webhookSecret;
+
+  @ConfigProperty(name = "app.github-maps-org-name", defaultValue = "triplea-maps")
+  String githubMapsOrgName;
+
+  @Inject ObjectMapper objectMapper;
+  @Inject MapIndexingScheduler mapIndexingScheduler;
+
+  /// Returns 202 when a repo was queued for indexing, 204 for an event that needs nothing, 401
+  /// for a missing or wrong signature and 404 while the webhook is disabled.
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  public Response receive(
+      @HeaderParam(EVENT_HEADER) String event,
+      @HeaderParam(SIGNATURE_HEADER) String signature,
+      byte[] body) {
+    if (webhookSecret.isEmpty() || !mapIndexingScheduler.isEnabled()) {
+      return Response.status(Response.Status.NOT_FOUND).build();
+    }
+    if (!signatureMatches(webhookSecret.get(), body, signature)) {
+      log.warn("Rejected Github webhook delivery with a bad signature, event: {}", event);
+      return Response.status(Response.Status.UNAUTHORIZED).build();
+    }
+
+    JsonNode payload;
+    try {
+      payload = objectMapper.readTree(body);
+    } catch (IOException e) {
+      throw new BadRequestException("Webhook payload is not JSON");
+    }
+    Optional<MapRepoListing> repo = repoToReindex(event, payload, githubMapsOrgName);
+    if (repo.isEmpty()) {
+      return Response.noContent().build();
+    }
+    log.info("Github {} event for {}, queueing it for indexing", event, repo.get().getUri());
+    mapIndexingScheduler.reindex(repo.get());
+    return Response.accepted().build();
+  }
+
+  /// Whether `signatureHeader` is `sha256=` followed by the hex HMAC-SHA256 of `body` keyed with
+  /// `secret`, compared in constant time.
+  @VisibleForTesting
+  static boolean signatureMatches(String secret, byte[] body, String signatureHeader) {
+    if (signatureHeader == null || !signatureHeader.startsWith("sha256=")) {
+      return false;
+    }
+    byte[] expected;
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+      expected = mac.doFinal(body);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 is not available", e);
+    }
+    byte[] actual;
+    try {
+      actual = HexFormat.of().parseHex(signatureHeader.substring("sha256=".length()));
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    return MessageDigest.isEqual(expected, actual);
+  }
+
+  /// The repo a webhook event asks to re-index: the event's repository if it belongs to `org` and
+  /// the event is a push to its default branch or any `repository` event other than deletion.
+  @VisibleForTesting
+  static Optional<MapRepoListing> repoToReindex(String event, JsonNode payload, String org) {
+    JsonNode repository = payload.path("repository");
+    String owner = repository.path("owner").path("login").asText();
+    if (!owner.equalsIgnoreCase(org)
+        || repository.path("html_url").asText().isEmpty()
+        || repository.path("default_branch").asText().isEmpty()) {
+      return Optional.empty();
+    }
+    String defaultBranch = repository.path("default_branch").asText();
+    boolean reindex =
+        switch (event == null ? "" : event) {
+          case "push" -> payload.path("ref").asText().equals("refs/heads/" + defaultBranch);
+          case "repository" -> !payload.path("action").asText().equals("deleted");
+          default -> false;
+        };
+    return reindex
+        ? Optional.of(
+            MapRepoListing.builder()
+                .uri(repository.path("html_url").asText())
+                .defaultBranch(defaultBranch)
+                .build())
+        : Optional.empty();
+  }
+}
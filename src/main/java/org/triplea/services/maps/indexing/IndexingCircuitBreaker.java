@@ -0,0 +1,66 @@
+package org.triplea.services.maps.indexing;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/// Stops a node from indexing while GitHub is clearly down, instead of spending every queued job's
+/// attempts on it.
+///
+/// Each transient indexing failure (a download or GitHub API call that may work later) counts
+/// towards `failureThreshold`; any repo whose indexing gets a request through to GitHub resets
+/// the count (a repo found up to date without a request proves nothing either way). Once the
+/// threshold is reached the breaker opens for `openDuration`, during which [#isOpen] tells the
+/// workers to leave their jobs for later. After that a single trial is let through: the next
+/// failure opens the breaker again straight away, and the next success closes it.
+class IndexingCircuitBreaker {
+  private final int failureThreshold;
+  private final long openNanos;
+  private final LongSupplier nanoClock;
+
+  private int consecutiveFailures;
+  private long openUntilNanos;
+  private boolean halfOpen;
+
+  IndexingCircuitBreaker(int failureThreshold, Duration openDuration) {
+    this(failureThreshold, openDuration, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  IndexingCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+    this.nanoClock = nanoClock;
+    this.openUntilNanos = nanoClock.getAsLong();
+  }
+
+  /// Notes a repo whose indexing got its requests through, whatever its outcome; closes the
+  /// breaker.
+  synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    halfOpen = false;
+  }
+
+  /// Notes a transient indexing failure, opening the breaker if it is one too many. Returns whether
+  /// this failure opened it.
+  synchronized boolean recordFailure() {
+    consecutiveFailures++;
+    if (halfOpen || consecutiveFailures >= failureThreshold) {
+      openUntilNanos = nanoClock.getAsLong() + openNanos;
+      halfOpen = true;
+      consecutiveFailures = 0;
+      return true;
+    }
+    return false;
+  }
+
+  /// Whether indexing should wait; see [#openFor].
+  synchronized boolean isOpen() {
+    return openUntilNanos - nanoClock.getAsLong() > 0;
+  }
+
+  /// How long until the breaker lets indexing try again; zero when it is closed.
+  synchronized Duration openFor() {
+    return Duration.ofNanos(Math.max(0, openUntilNanos - nanoClock.getAsLong()));
+  }
+}
@@ -1,11 +1,19 @@
 package org.triplea.services.maps.indexing;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import lombok.AllArgsConstructor;
 import org.jdbi.v3.core.Jdbi;
-import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.core.statement.SqlStatement;
 import org.triplea.http.client.github.MapRepoListing;
 
 @AllArgsConstructor
@@ -14,127 +22,249 @@ public class MapIndexDao {
   /// indexing error text is truncated to fit.
   private static final int MAX_ERROR_TEXT_LENGTH = 4000;
 
-  private final Jdbi jdbi;
-
-  /// Upserts a map indexing result into the map_index table.
-  void upsert(MapIndex mapIndex) {
-    String query =
-        "insert into map_index("
-            + "    map_name, repo_url, default_branch, description, "
-            + "    download_url, preview_image_url, download_size_bytes, last_commit_date, "
-            // A brand-new repo starts unapproved ("pending approval"), hidden from the public
-            // listing until a MapAdmin approves it, no matter its indexing health. The ON CONFLICT
-            // update below never names the admin columns, so an existing map's approval is kept.
-            + "    admin_enabled, admin_disable_reason)\n"
-            + "values("
-            + "     :mapName, :mapRepoUri, :defaultBranch, :description, "
-            + "     :downloadUri, :previewImageUri, :mapDownloadSizeInBytes, :lastCommitDate, "
-            + "     false, 'pending approval')\n"
-            + "on conflict(repo_url)\n"
-            + "do update set\n"
-            + "   map_name = :mapName,"
-            + "   description = :description,"
-            + "   default_branch = :defaultBranch,"
-            + "   download_url = :downloadUri,"
-            + "   preview_image_url = :previewImageUri,"
-            + "   download_size_bytes = :mapDownloadSizeInBytes,"
-            + "   last_commit_date = :lastCommitDate,"
-            // A successful (re-)index re-enables the map and clears any disable reason, so a repo
-            // that was disabled (e.g. marked 'DELETED' after vanishing from Github) comes back
-            // enabled the moment it indexes cleanly again.
-            + "   enabled = true,"
-            + "   disable_reason = null";
-    jdbi.withHandle(handle -> handle.createUpdate(query).bindBean(mapIndex).execute());
-  }
+  /// Upserts a successfully indexed map into the map_index table.
+  private static final String UPSERT =
+      "insert into map_index("
+          + "    map_name, repo_url, default_branch, description, "
+          + "    download_url, preview_image_url, download_size_bytes, last_commit_date, "
+          // A brand-new repo starts unapproved ("pending approval"), hidden from the public
+          // listing until a MapAdmin approves it, no matter its indexing health. The ON CONFLICT
+          // update below never names the admin columns, so an existing map's approval is kept.
+          + "    admin_enabled, admin_disable_reason)\n"
+          + "values("
+          + "     :mapName, :mapRepoUri, :defaultBranch, :description, "
+          + "     :downloadUri, :previewImageUri, :mapDownloadSizeInBytes, :lastCommitDate, "
+          + "     false, 'pending approval')\n"
+          + "on conflict(repo_url)\n"
+          + "do update set\n"
+          + "   map_name = :mapName,"
+          + "   description = :description,"
+          + "   default_branch = :defaultBranch,"
+          + "   download_url = :downloadUri,"
+          + "   preview_image_url = :previewImageUri,"
+          + "   download_size_bytes = :mapDownloadSizeInBytes,"
+          + "   last_commit_date = :lastCommitDate,"
+          // A successful (re-)index re-enables the map and clears any disable reason, so a repo
+          // that was disabled (e.g. marked 'DELETED' after vanishing from Github) comes back
+          // enabled the moment it indexes cleanly again.
+          + "   enabled = true,"
+          + "   disable_reason = null,"
+          + "   date_updated = now()";
 
   /// Upserts a *disabled* map_index row carrying an indexing error in `disable_reason`. For a
-  /// brand-new repo this inserts a placeholder row from the values the caller could still derive
+  /// brand-new repo this inserts a placeholder row from the values the indexer could still derive
   /// (repo name as map name, size 0, the commit date already fetched from Github). For a repo that
   /// was previously indexed, the existing data columns are preserved and only `enabled`/
   /// `disable_reason` are flipped, so a map's real metadata is not overwritten by an error.
-  void upsertDisabled(MapIndex mapIndex, String disableReason) {
-    String reason = truncate(disableReason);
-    String query =
-        "insert into map_index("
-            + "    map_name, repo_url, default_branch, description, "
-            + "    download_url, preview_image_url, download_size_bytes, last_commit_date, "
-            + "    enabled, disable_reason, "
-            // As in upsert(): a brand-new repo starts unapproved, independent of its indexing
-            // health. The ON CONFLICT update leaves the admin columns alone.
-            + "    admin_enabled, admin_disable_reason)\n"
-            + "values("
-            + "     :mapName, :mapRepoUri, :defaultBranch, :description, "
-            + "     :downloadUri, :previewImageUri, :mapDownloadSizeInBytes, :lastCommitDate, "
-            + "     false, :disableReason, "
-            + "     false, 'pending approval')\n"
-            + "on conflict(repo_url)\n"
-            + "do update set\n"
-            + "   enabled = false,"
-            + "   disable_reason = :disableReason,"
-            + "   date_updated = now()";
-    jdbi.withHandle(
+  private static final String UPSERT_DISABLED =
+      "insert into map_index("
+          + "    map_name, repo_url, default_branch, description, "
+          + "    download_url, preview_image_url, download_size_bytes, last_commit_date, "
+          + "    enabled, disable_reason, "
+          // As in UPSERT: a brand-new repo starts unapproved, independent of its indexing health.
+          // The ON CONFLICT update leaves the admin columns alone.
+          + "    admin_enabled, admin_disable_reason)\n"
+          + "values("
+          + "     :mapName, :mapRepoUri, :defaultBranch, :description, "
+          + "     :downloadUri, :previewImageUri, :mapDownloadSizeInBytes, :lastCommitDate, "
+          + "     false, :disableReason, "
+          + "     false, 'pending approval')\n"
+          + "on conflict(repo_url)\n"
+          + "do update set\n"
+          + "   enabled = false,"
+          + "   disable_reason = :disableReason,"
+          + "   date_updated = now()";
+
+  /// Upserts a repo's row in map_indexing_status with the outcome of indexing it; see
+  /// [#recordResults].
+  private static final String RECORD_STATUS =
+      "insert into map_indexing_status("
+          + "    repo_url, repo_name, last_indexing_attempt, last_success, "
+          + "    result_code, error_message, repo_changed_at)\n"
+          + "values("
+          + "    :repoUrl, :repoName, now(),"
+          + "    case when :success then now() else null end,"
+          + "    :resultCode, :errorMessage, :repoChangedAt)\n"
+          + "on conflict(repo_url)\n"
+          + "do update set\n"
+          + "    repo_name = excluded.repo_name,"
+          + "    last_indexing_attempt = now(),"
+          + "    last_success = case when :success then now()"
+          + "                        else map_indexing_status.last_success end,"
+          + "    result_code = excluded.result_code,"
+          + "    error_message = excluded.error_message,"
+          + "    repo_changed_at = excluded.repo_changed_at,"
+          + "    next_retry_at = null,"
+          + "    date_updated = now()";
+
+  /// Upserts a repo's row in map_indexing_status after a transient failure; see [#recordRetry].
+  private static final String RECORD_RETRY =
+      """
+          insert into map_indexing_status
+            (repo_url, repo_name, last_indexing_attempt, result_code, error_message, next_retry_at)
+          values (:repoUrl, :repoName, now(), :resultCode, :errorMessage, :nextRetryAt)
+          on conflict (repo_url) do update set
+            repo_name = excluded.repo_name,
+            last_indexing_attempt = now(),
+            result_code = excluded.result_code,
+            error_message = excluded.error_message,
+            repo_changed_at = null,
+            next_retry_at = excluded.next_retry_at,
+            date_updated = now()
+          """;
+
+  /// Each map's last commit date and branch, and its repo's last-change time while the map is
+  /// enabled.
+  private static final String SELECT_INDEXED_STATE =
+      """
+          select m.repo_url, m.last_commit_date, m.default_branch,
+                 case when m.enabled then s.repo_changed_at end as repo_changed_at
+            from map_index m
+            left join map_indexing_status s on s.repo_url = m.repo_url
+          """;
+
+  private final Jdbi jdbi;
+
+  /// Disables maps whose repo is no longer present on Github (not in `repoUrls`) by setting
+  /// `enabled = false` with reason 'DELETED', and returns their repo URLs. The row is kept rather
+  /// than deleted so a repo that later reappears is re-enabled when it next indexes cleanly. Only
+  /// currently-enabled rows are touched, leaving an existing disable reason (e.g. an admin disable)
+  /// intact.
+  ///
+  /// The URLs are bound as one array and anti-joined, so the statement text and plan are the same
+  /// however many repos there are.
+  List<String> disableMapsNotIn(Collection<String> repoUrls) {
+    String update =
+        """
+            update map_index m
+              set enabled = false, disable_reason = 'DELETED', date_updated = now()
+              where m.enabled
+                and not exists (
+                  select 1 from unnest(:repoUrls) as listed(repo_url)
+                    where listed.repo_url = m.repo_url)
+              returning m.repo_url
+            """;
+    return jdbi.withHandle(
         handle ->
-            handle.createUpdate(query).bindBean(mapIndex).bind("disableReason", reason).execute());
+            handle
+                .createQuery(update)
+                .bindArray("repoUrls", String.class, repoUrls)
+                .mapTo(String.class)
+                .list());
   }
 
-  /// Disables maps whose repo is no longer present on Github (not in the parameter list) by
-  /// setting `enabled = false` with reason 'DELETED'. The row is kept rather than deleted so a
-  /// repo that later reappears can be re-enabled by {@link #upsert}. Only currently-enabled rows
-  /// are touched, leaving an existing disable reason (e.g. an admin disable) intact.
-  int disableMapsNotIn(List<String> mapUriList) {
-    String update =
-        "update map_index"
-            + " set enabled = false, disable_reason = 'DELETED', date_updated = now()"
-            + " where repo_url not in(<mapUriList>) and enabled";
+  /// What the database knows about an indexed repo: the last commit date of its map and the
+  /// default branch that commit is on, and its last-change time as of the last pass that left the
+  /// map enabled and up to date (null if the repo has not indexed cleanly since it last changed,
+  /// errored or was disabled).
+  record IndexedState(
+      Instant lastCommitDate, @Nullable Instant repoChangedAt, String defaultBranch) {}
+
+  /// The [IndexedState] of every repo in `map_index`, by repo URL, read in one scan so that an
+  /// indexing pass can tell which repos are up to date without a query per repo.
+  Map<String, IndexedState> loadIndexedStates() {
     return jdbi.withHandle(
-        handle -> handle.createUpdate(update).bindList("mapUriList", mapUriList).execute());
+        handle ->
+            handle
+                .createQuery(SELECT_INDEXED_STATE)
+                .map((rs, ctx) -> Map.entry(rs.getString("repo_url"), toIndexedState(rs)))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
   }
 
-  Optional<Instant> getLastCommitDate(@Bind("repoUrl") String repoUrl) {
-    String select = "select last_commit_date from map_index where repo_url = :repoUrl";
+  /// The [IndexedState] of one repo, or empty if it has no map in `map_index`.
+  Optional<IndexedState> findIndexedState(String repoUrl) {
     return jdbi.withHandle(
         handle ->
-            handle.createQuery(select).bind("repoUrl", repoUrl).mapTo(Instant.class).findOne());
+            handle
+                .createQuery(SELECT_INDEXED_STATE + " where m.repo_url = :repoUrl")
+                .bind("repoUrl", repoUrl)
+                .map((rs, ctx) -> toIndexedState(rs))
+                .findOne());
   }
 
-  /// Records the outcome of an indexing pass for one repo in `map_indexing_status` (one row per
-  /// repo, latest result only). `last_indexing_attempt` advances on every call; `last_success`
-  /// only advances on a successful index; `error_message` holds the joined error text, or null
-  /// when there were no errors. This is the audit trail behind "why has my map not shown up?".
-  void recordIndexingStatus(MapRepoListing listing, MapIndexingTaskRunner.IndexingResult status) {
-    boolean success =
-        status.resultCode == MapIndexingTaskRunner.IndexingResult.ResultCode.SUCCESSFULLY_INDEXED;
-    String errorMessage =
-        status.errorDetails.isEmpty() ? null : truncate(String.join("\n\n", status.errorDetails));
-    String upsert =
-        "insert into map_indexing_status("
-            + "    repo_url, repo_name, last_indexing_attempt, last_success, "
-            + "    result_code, error_message)\n"
-            + "values("
-            + "    :repoUrl, :repoName, now(),"
-            + "    case when :success then now() else null end,"
-            + "    :resultCode, :errorMessage)\n"
-            + "on conflict(repo_url)\n"
-            + "do update set\n"
-            + "    repo_name = excluded.repo_name,"
-            + "    last_indexing_attempt = now(),"
-            + "    last_success = case when :success then now()"
-            + "                        else map_indexing_status.last_success end,"
-            + "    result_code = excluded.result_code,"
-            + "    error_message = excluded.error_message,"
-            + "    date_updated = now()";
-    jdbi.withHandle(
+  private static IndexedState toIndexedState(ResultSet rs) throws SQLException {
+    OffsetDateTime repoChangedAt = rs.getObject("repo_changed_at", OffsetDateTime.class);
+    return new IndexedState(
+        rs.getObject("last_commit_date", OffsetDateTime.class).toInstant(),
+        repoChangedAt == null ? null : repoChangedAt.toInstant(),
+        rs.getString("default_branch"));
+  }
+
+  /// Writes the outcome of indexing each of `indexedRepos` in one transaction, as one batch of
+  /// `map_index` upserts, one of disabled upserts and one of `map_indexing_status` upserts. Readers
+  /// of either table see all of the repos' results or none.
+  ///
+  /// `map_indexing_status` keeps one row per repo, latest result only. `last_indexing_attempt`
+  /// advances on every write; `last_success` only advances on a successful index;
+  /// `error_message` holds the joined error text, or null when there were no errors. This is the
+  /// audit trail behind "why has my map not shown up?". Unless indexing failed, the listing's
+  /// last-change time is kept in `repo_changed_at`, so the next pass can tell from the listing
+  /// alone whether the repo changed since.
+  void recordResults(Collection<MapIndexingTaskRunner.IndexedRepo> indexedRepos) {
+    jdbi.useTransaction(
+        handle -> {
+          PreparedBatch upserts = handle.prepareBatch(UPSERT);
+          PreparedBatch disabledUpserts = handle.prepareBatch(UPSERT_DISABLED);
+          PreparedBatch statuses = handle.prepareBatch(RECORD_STATUS);
+          for (MapIndexingTaskRunner.IndexedRepo indexedRepo : indexedRepos) {
+            MapIndexingTaskRunner.IndexingResult result = indexedRepo.result();
+            switch (result.resultCode) {
+              case SUCCESSFULLY_INDEXED -> upserts.bindBean(indexedRepo.mapIndex()).add();
+              case REPO_ERROR ->
+                  disabledUpserts
+                      .bindBean(indexedRepo.mapIndex())
+                      .bind("disableReason", truncate(String.join("\n\n", result.errorDetails)))
+                      .add();
+              case INDEXING_IS_UP_TO_DATE, TEMPORARY_ERROR -> {}
+            }
+            bindStatus(statuses, indexedRepo.listing(), result).add();
+          }
+          for (PreparedBatch batch : List.of(upserts, disabledUpserts, statuses)) {
+            if (batch.size() > 0) {
+              batch.execute();
+            }
+          }
+        });
+  }
+
+  /// Records in `map_indexing_status` that indexing the repo failed for a transient reason and is
+  /// to be retried at `nextRetryAt` (null if it will not be retried before the next pass). The
+  /// map's `map_index` row is left alone, so a map that was listed stays listed. `repo_changed_at`
+  /// is reset, so that the repo is not skipped as up to date on the next pass.
+  void recordRetry(MapRepoListing listing, String errorMessage, @Nullable Instant nextRetryAt) {
+    jdbi.useHandle(
         handle ->
             handle
-                .createUpdate(upsert)
+                .createUpdate(RECORD_RETRY)
                 .bind("repoUrl", listing.getUri().toString())
                 .bind("repoName", listing.getName())
-                .bind("success", success)
-                .bind("resultCode", status.resultCode.name())
-                .bind("errorMessage", errorMessage)
+                .bind(
+                    "resultCode",
+                    MapIndexingTaskRunner.IndexingResult.ResultCode.TEMPORARY_ERROR.name())
+                .bind("errorMessage", truncate(errorMessage))
+                .bindByType("nextRetryAt", nextRetryAt, Instant.class)
                 .execute());
   }
 
+  private static <T extends SqlStatement<T>> T bindStatus(
+      T statement, MapRepoListing listing, MapIndexingTaskRunner.IndexingResult status) {
+    boolean success =
+        status.resultCode == MapIndexingTaskRunner.IndexingResult.ResultCode.SUCCESSFULLY_INDEXED;
+    Instant repoChangedAt =
+        status.resultCode == MapIndexingTaskRunner.IndexingResult.ResultCode.REPO_ERROR
+            ? null
+            : listing.getLastChanged();
+    String errorMessage =
+        status.errorDetails.isEmpty() ? null : truncate(String.join("\n\n", status.errorDetails));
+    return statement
+        .bind("repoUrl", listing.getUri().toString())
+        .bind("repoName", listing.getName())
+        .bind("success", success)
+        .bind("resultCode", status.resultCode.name())
+        .bind("errorMessage", errorMessage)
+        .bindByType("repoChangedAt", repoChangedAt, Instant.class);
+  }
+
   /// Caps error text at the column width, preserving null.
   private static String truncate(String text) {
     return (text == null || text.length() <= MAX_ERROR_TEXT_LENGTH)
@@ -7,22 +7,27 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import lombok.Builder;
 import lombok.Getter;
-import org.triplea.http.client.github.GithubClient;
 import org.triplea.http.client.github.MapRepoListing;
-import org.triplea.services.maps.indexing.tasks.CommitDateFetcher;
 import org.triplea.services.maps.indexing.tasks.DownloadSizeFetcher;
+import org.triplea.services.maps.indexing.tasks.MapArchiveReader;
+import org.triplea.services.maps.indexing.tasks.MapArchiveReader.MapArchive;
 import org.triplea.services.maps.indexing.tasks.MapDescriptionReader;
 import org.triplea.services.maps.indexing.tasks.MapNameReader;
 
 /// MapIndexer physically fetches the data required to index a map.
+///
+/// With a `mapArchiveReader`, the map name, description and download size all come from a single
+/// streamed download of the map archive. Without one, `map.yml` and `description.html` are each
+/// downloaded on their own and the archive is sized separately.
 @Builder
 class MapIndexer {
-  @Nonnull private final Function<MapRepoListing, Optional<Instant>> lastCommitDateFetcher;
   @Nonnull private final Function<MapRepoListing, Optional<String>> mapNameReader;
   @Nonnull private final Function<MapRepoListing, String> mapDescriptionReader;
   @Nonnull private final Function<URI, Optional<Long>> downloadSizeFetcher;
+  @Nullable private final Function<URI, Optional<MapArchive>> mapArchiveReader;
 
   /// The URL the map archive is downloaded from, derived from the repo and its default branch.
   /// Always computable from the listing alone, so it is also used to build the placeholder row
@@ -42,12 +47,14 @@ class MapIndexer {
         + "/preview.png?raw=true";
   }
 
-  static MapIndexer build(final GithubClient githubApiClient) {
+  /// @param readArchive Whether to read everything from one download of the map archive (see
+  ///     [MapArchiveReader]) rather than fetch each file separately.
+  static MapIndexer build(final boolean readArchive) {
     return MapIndexer.builder()
-        .lastCommitDateFetcher(CommitDateFetcher.builder().githubClient(githubApiClient).build())
         .mapNameReader(MapNameReader.builder().build())
         .mapDescriptionReader(new MapDescriptionReader())
         .downloadSizeFetcher(new DownloadSizeFetcher())
+        .mapArchiveReader(readArchive ? new MapArchiveReader() : null)
         .build();
   }
 
@@ -66,18 +73,35 @@ class MapIndexer {
     }
   }
 
-  public MapIndex apply(final MapRepoListing mapRepoListing) throws IndexingException {
+  /// Indexes the repo at its last commit, `lastCommitDateOnRepo`, which the caller has already
+  /// fetched to decide that the repo needs indexing.
+  public MapIndex apply(final MapRepoListing mapRepoListing, final Instant lastCommitDateOnRepo)
+      throws IndexingException {
     List<String> errorCollector = new ArrayList<>();
 
-    Instant lastCommitDateOnRepo = lastCommitDateFetcher.apply(mapRepoListing).orElse(null);
-    if (lastCommitDateOnRepo == null) {
-      errorCollector.add(
-          """
-          Failed to fetch the date of the last change to the repository. This is an unexpected error. Check server logs.
-          """);
+    final String downloadUri = downloadUri(mapRepoListing);
+
+    final String mapName;
+    final String description;
+    final Long downloadSize;
+    if (mapArchiveReader != null) {
+      final MapArchive archive = mapArchiveReader.apply(URI.create(downloadUri)).orElse(null);
+      mapName =
+          (archive == null || archive.mapYml() == null)
+              ? null
+              : MapNameReader.readMapName(
+                      archive.mapYml(), MapNameReader.computeMapYamlLocation(mapRepoListing))
+                  .orElse(null);
+      description =
+          MapDescriptionReader.describe(
+              archive == null ? null : archive.descriptionHtml(), mapRepoListing);
+      downloadSize = archive == null ? null : archive.sizeInBytes();
+    } else {
+      mapName = mapNameReader.apply(mapRepoListing).orElse(null);
+      description = mapDescriptionReader.apply(mapRepoListing);
+      downloadSize = downloadSizeFetcher.apply(URI.create(downloadUri)).orElse(null);
     }
 
-    final String mapName = mapNameReader.apply(mapRepoListing).orElse(null);
     if (mapName == null) {
       errorCollector.add(
           String.format(
@@ -88,13 +112,8 @@ class MapIndexer {
               MapNameReader.computeMapYamlLocation(mapRepoListing)));
     }
 
-    final String description = mapDescriptionReader.apply(mapRepoListing);
-
     final String previewImageUri = previewImageUri(mapRepoListing);
 
-    final String downloadUri = downloadUri(mapRepoListing);
-
-    final Long downloadSize = downloadSizeFetcher.apply(URI.create(downloadUri)).orElse(null);
     if (downloadSize == null) {
       errorCollector.add(
           """
@@ -0,0 +1,302 @@
+package org.triplea.services.maps.indexing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.triplea.http.client.github.MapRepoListing;
+
+/// The `map_indexing_run` / `map_indexing_job` work queue through which every node with map
+/// indexing enabled shares a full pass (see [MapIndexingTaskRunner]).
+///
+/// Jobs are claimed a few at a time with `for update skip locked`, so concurrent workers never
+/// wait on each other's rows, and are held on a lease: a worker that dies leaves its jobs to be
+/// claimed again once the lease expires. Each claim draws a new lease token, and a worker can only
+/// finish or give back a job while its token is still the current one. A job given back to be
+/// retried later keeps a lease expiry without an owner, which holds it back until then.
+@AllArgsConstructor
+public class MapIndexingJobDao {
+  /// Key of the advisory lock that keeps two nodes from starting a run at the same time.
+  private static final long START_RUN_LOCK_KEY = 0x6d61_7069_6e64_6578L;
+
+  private final Jdbi jdbi;
+
+  /// A claimed job: the repo to index and the lease under which it is held.
+  record Job(MapRepoListing listing, Instant headCommitDate, UUID leaseToken, int attempts) {}
+
+  /// A run that has just been marked finished.
+  record FinishedRun(long id, Instant startedAt, boolean listingChanged) {}
+
+  /// Whether any node started a run less than `minInterval` ago. Lets a node join that run before
+  /// spending GitHub requests on listing the repos for a run of its own.
+  boolean runStartedWithin(Duration minInterval) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                        select exists (
+                          select 1
+                            from map_indexing_run
+                            where started_at > now() - :minIntervalMillis * interval '1 millisecond')
+                        """)
+                .bind("minIntervalMillis", minInterval.toMillis())
+                .mapTo(Boolean.class)
+                .one());
+  }
+
+  /// Starts a new run with one job per listed repo and returns its id, or empty if another node
+  /// started one less than `minInterval` ago (or is starting one right now), in which case that
+  /// run covers this pass. Each job carries its repo's head commit date from `branchHeads`, if
+  /// present. `listingChanged` records that the run changed the map listing before any job did.
+  ///
+  /// The run and its jobs are committed together: a run without jobs looks finished to
+  /// [#finishRuns], so no node may see the run before its jobs. A repo that is still queued from
+  /// an earlier run is reset into this one, and a lease on it is revoked. Also drops finished runs
+  /// older than 30 days.
+  OptionalLong startRun(
+      Duration minInterval,
+      Collection<MapRepoListing> listings,
+      Map<String, Instant> branchHeads,
+      boolean listingChanged) {
+    return jdbi.inTransaction(
+        handle -> {
+          boolean locked =
+              handle
+                  .createQuery("select pg_try_advisory_xact_lock(:key)")
+                  .bind("key", START_RUN_LOCK_KEY)
+                  .mapTo(Boolean.class)
+                  .one();
+          if (!locked) {
+            return OptionalLong.empty();
+          }
+          handle.execute(
+              """
+                  delete from map_indexing_run
+                    where finished_at < now() - interval '30 days'
+                  """);
+          Optional<Long> runId =
+              handle
+                  .createQuery(
+                      """
+                          insert into map_indexing_run (started_at, listing_changed)
+                          select now(), :listingChanged
+                            where not exists (
+                              select 1
+                                from map_indexing_run
+                                where started_at
+                                    > now() - :minIntervalMillis * interval '1 millisecond')
+                          returning id
+                          """)
+                  .bind("listingChanged", listingChanged)
+                  .bind("minIntervalMillis", minInterval.toMillis())
+                  .mapTo(Long.class)
+                  .findOne();
+          if (runId.isEmpty()) {
+            return OptionalLong.empty();
+          }
+          enqueue(handle, runId.get(), listings, branchHeads);
+          return OptionalLong.of(runId.get());
+        });
+  }
+
+  private static void enqueue(
+      Handle handle,
+      long runId,
+      Collection<MapRepoListing> listings,
+      Map<String, Instant> branchHeads) {
+    PreparedBatch batch =
+        handle.prepareBatch(
+            """
+                insert into map_indexing_job
+                  (repo_url, run_id, default_branch, pushed_at, updated_at, head_commit_date)
+                values
+                  (:repoUrl, :runId, :defaultBranch, :pushedAt, :updatedAt, :headCommitDate)
+                on conflict (repo_url) do update set
+                  run_id = excluded.run_id,
+                  default_branch = excluded.default_branch,
+                  pushed_at = excluded.pushed_at,
+                  updated_at = excluded.updated_at,
+                  head_commit_date = excluded.head_commit_date,
+                  attempts = 0,
+                  lease_token = null,
+                  lease_owner = null,
+                  lease_expires_at = null,
+                  date_created = now()
+                """);
+    for (MapRepoListing listing : listings) {
+      String repoUrl = listing.getUri().toString();
+      batch
+          .bind("repoUrl", repoUrl)
+          .bind("runId", runId)
+          .bind("defaultBranch", listing.getDefaultBranch())
+          .bindByType("pushedAt", listing.getPushedAt(), Instant.class)
+          .bindByType("updatedAt", listing.getUpdatedAt(), Instant.class)
+          .bindByType("headCommitDate", branchHeads.get(repoUrl), Instant.class)
+          .add();
+    }
+    if (batch.size() > 0) {
+      batch.execute();
+    }
+  }
+
+  /// Leases up to `limit` of the oldest jobs that are neither leased nor out of attempts to `owner`
+  /// for `leaseDuration`, skipping rows other workers are claiming at the same moment.
+  List<Job> claim(String owner, Duration leaseDuration, int maxAttempts, int limit) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                        update map_indexing_job
+                          set attempts = attempts + 1,
+                              lease_token = :leaseToken,
+                              lease_owner = :owner,
+                              lease_expires_at =
+                                  now() + :leaseMillis * interval '1 millisecond'
+                          where repo_url in (
+                            select repo_url
+                              from map_indexing_job
+                              where (lease_expires_at is null or lease_expires_at < now())
+                                and attempts < :maxAttempts
+                              order by date_created, repo_url
+                              limit :limit
+                              for update skip locked)
+                          returning repo_url, default_branch, pushed_at, updated_at,
+                                    head_commit_date, lease_token, attempts
+                        """)
+                .bind("leaseToken", UUID.randomUUID())
+                .bind("owner", owner)
+                .bind("leaseMillis", leaseDuration.toMillis())
+                .bind("maxAttempts", maxAttempts)
+                .bind("limit", limit)
+                .map(
+                    (rs, ctx) ->
+                        new Job(
+                            MapRepoListing.builder()
+                                .uri(rs.getString("repo_url"))
+                                .defaultBranch(rs.getString("default_branch"))
+                                .pushedAt(
+                                    toIsoString(rs.getObject("pushed_at", OffsetDateTime.class)))
+                                .updatedAt(
+                                    toIsoString(rs.getObject("updated_at", OffsetDateTime.class)))
+                                .build(),
+                            Optional.ofNullable(
+                                    rs.getObject("head_commit_date", OffsetDateTime.class))
+                                .map(OffsetDateTime::toInstant)
+                                .orElse(null),
+                            rs.getObject("lease_token", UUID.class),
+                            rs.getInt("attempts")))
+                .list());
+  }
+
+  /// Deletes finished jobs, noting on their runs whether they changed the listing. Returns how many
+  /// were deleted: a job whose lease already passed to another worker is left to that worker.
+  int complete(List<Job> jobs, boolean listingChanged) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                        with done as (
+                          delete from map_indexing_job j
+                            using unnest(:repoUrls, cast(:leaseTokens as uuid[]))
+                                  as c(repo_url, lease_token)
+                            where j.repo_url = c.repo_url and j.lease_token = c.lease_token
+                            returning j.run_id),
+                        changed as (
+                          update map_indexing_run
+                            set listing_changed = true
+                            where :listingChanged and id in (select run_id from done))
+                        select count(*) from done
+                        """)
+                .bindArray(
+                    "repoUrls",
+                    String.class,
+                    jobs.stream().map(job -> job.listing().getUri().toString()).toList())
+                .bindArray(
+                    "leaseTokens",
+                    String.class,
+                    jobs.stream().map(job -> job.leaseToken().toString()).toList())
+                .bind("listingChanged", listingChanged)
+                .mapTo(Integer.class)
+                .one());
+  }
+
+  /// Gives up the lease on a job that could not be finished, so that it can be claimed again once
+  /// `delay` has passed (straight away for a zero delay). Unless `countAttempt`, the claim is not
+  /// counted against the job's attempts, as for a job that was put off without being tried.
+  void retryLater(Job job, Duration delay, boolean countAttempt) {
+    jdbi.useHandle(
+        handle ->
+            handle
+                .createUpdate(
+                    """
+                        update map_indexing_job
+                          set lease_token = null,
+                              lease_owner = null,
+                              lease_expires_at = now() + :delayMillis * interval '1 millisecond',
+                              attempts = case when :countAttempt then attempts else attempts - 1 end
+                          where repo_url = :repoUrl and lease_token = :leaseToken
+                        """)
+                .bind("delayMillis", delay.toMillis())
+                .bind("countAttempt", countAttempt)
+                .bind("repoUrl", job.listing().getUri().toString())
+                .bind("leaseToken", job.leaseToken())
+                .execute());
+  }
+
+  /// Drops jobs that have used up `maxAttempts` and are no longer leased, returning their repo
+  /// URLs.
+  List<String> dropExhaustedJobs(int maxAttempts) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                        delete from map_indexing_job
+                          where attempts >= :maxAttempts
+                            and (lease_expires_at is null or lease_expires_at < now())
+                          returning repo_url
+                        """)
+                .bind("maxAttempts", maxAttempts)
+                .mapTo(String.class)
+                .list());
+  }
+
+  /// Marks every unfinished run without jobs left as finished and returns those runs. Each run is
+  /// returned to exactly one caller, however many nodes call this at the same time.
+  List<FinishedRun> finishRuns() {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                        update map_indexing_run r
+                          set finished_at = now()
+                          where finished_at is null
+                            and not exists (select 1 from map_indexing_job j where j.run_id = r.id)
+                          returning id, started_at, listing_changed
+                        """)
+                .map(
+                    (rs, ctx) ->
+                        new FinishedRun(
+                            rs.getLong("id"),
+                            rs.getObject("started_at", OffsetDateTime.class).toInstant(),
+                            rs.getBoolean("listing_changed")))
+                .list());
+  }
+
+  private static String toIsoString(OffsetDateTime timestamp) {
+    return timestamp == null ? null : timestamp.toInstant().toString();
+  }
+}
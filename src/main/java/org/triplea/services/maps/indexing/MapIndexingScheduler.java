@@ -1,17 +1,32 @@
 package org.triplea.services.maps.indexing;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jdbi.v3.core.Jdbi;
 import org.triplea.http.client.github.GithubClient;
+import org.triplea.http.client.github.GithubRateLimiterMetrics;
+import org.triplea.http.client.github.MapRepoListing;
+import org.triplea.services.maps.listing.MapListingCache;
 
 /// Quarkus-managed bean that runs the map indexing task on a configurable schedule. Replaces the
 /// DropWizard `ScheduledTask` + `MapsIndexingObjectFactory` wiring.
+///
+/// Every node with map indexing enabled runs the same schedule, but a pass is only started once
+/// per half period across all of them; the others join it. Each node also polls the job queue
+/// every `app.map-indexing-job-poll`, to help with a pass another node started and to pick up jobs
+/// left behind by a node that died (see [MapIndexingTaskRunner]).
+///
+/// Also re-indexes single repos on request ([#reindex]), as reported by [GithubWebhookController],
+/// so pushes show up without waiting for the next full pass.
 @ApplicationScoped
 @Slf4j
 public class MapIndexingScheduler {
@@ -22,6 +37,24 @@ public class MapIndexingScheduler {
   @ConfigProperty(name = "app.map-indexing-period-minutes", defaultValue = "300")
   int periodMinutes;
 
+  @ConfigProperty(name = "app.map-indexing-parallelism", defaultValue = "8")
+  int parallelism;
+
+  @ConfigProperty(name = "app.map-indexing-batch-size", defaultValue = "10")
+  int batchSize;
+
+  @ConfigProperty(name = "app.map-indexing-read-archive", defaultValue = "true")
+  boolean readArchive;
+
+  @ConfigProperty(name = "app.map-indexing-job-lease", defaultValue = "15m")
+  Duration jobLease;
+
+  @ConfigProperty(name = "app.map-indexing-listing-refresh-interval", defaultValue = "30s")
+  Duration listingRefreshInterval;
+
+  @ConfigProperty(name = "app.map-reindex-delay", defaultValue = "10s")
+  Duration reindexDelay;
+
   @ConfigProperty(name = "app.github-api-token")
   Optional<String> githubApiToken;
 
@@ -29,18 +62,50 @@ public class MapIndexingScheduler {
   String githubMapsOrgName;
 
   @Inject Jdbi jdbi;
+  @Inject MeterRegistry meterRegistry;
+  @Inject MapListingCache mapListingCache;
 
   private MapIndexingTaskRunner taskRunner;
+  private MapReindexQueue reindexQueue;
 
   @PostConstruct
   void init() {
-    var githubClient = GithubClient.build(githubApiToken.orElse(""), githubMapsOrgName);
+    var githubClient =
+        GithubClient.build(
+            githubApiToken.orElse(""), githubMapsOrgName, new GithubResponseCacheDao(jdbi));
+    new GithubRateLimiterMetrics(githubClient.rateLimiter(), "map-indexing").bindTo(meterRegistry);
     taskRunner =
         MapIndexingTaskRunner.builder()
             .githubClient(githubClient)
-            .mapIndexer(MapIndexer.build(githubClient))
+            .mapIndexer(MapIndexer.build(readArchive))
             .mapIndexDao(new MapIndexDao(jdbi))
+            .listingChangeListener(mapListingCache::invalidate)
+            .listingRefreshInterval(listingRefreshInterval)
+            .jobDao(new MapIndexingJobDao(jdbi))
+            .parallelism(parallelism)
+            .batchSize(batchSize)
+            .workerId(ManagementFactory.getRuntimeMXBean().getName())
+            .leaseDuration(jobLease)
+            .minRunInterval(Duration.ofMinutes(periodMinutes).dividedBy(2))
             .build();
+    reindexQueue = new MapReindexQueue(taskRunner::reindex, reindexDelay);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    reindexQueue.close();
+  }
+
+  boolean isEnabled() {
+    return mapIndexingEnabled;
+  }
+
+  /// Re-indexes `listing`'s repo shortly, coalescing repeated requests (see [MapReindexQueue]),
+  /// even if its head commit is already indexed (see [MapIndexingTaskRunner#reindex]).
+  void reindex(MapRepoListing listing) {
+    if (mapIndexingEnabled) {
+      reindexQueue.enqueue(listing);
+    }
   }
 
   @Scheduled(every = "{app.map-indexing-period-duration}", delayed = "20s")
@@ -51,4 +116,14 @@ public class MapIndexingScheduler {
     log.info("Map indexing period: {} minutes", periodMinutes);
     taskRunner.run();
   }
+
+  @Scheduled(
+      every = "{app.map-indexing-job-poll}",
+      delayed = "60s",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void processJobs() {
+    if (mapIndexingEnabled) {
+      taskRunner.processJobs();
+    }
+  }
 }
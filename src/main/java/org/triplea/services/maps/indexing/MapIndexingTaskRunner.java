@@ -1,16 +1,30 @@
 package org.triplea.services.maps.indexing;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Suppliers;
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
+import org.triplea.http.client.github.BranchHead;
 import org.triplea.http.client.github.GithubClient;
 import org.triplea.http.client.github.MapRepoListing;
 
@@ -18,21 +32,103 @@ import org.triplea.http.client.github.MapRepoListing;
 /// latest checked in across all map repositories.
 ///
 /// - Queries Github for list of map repos
+/// - Reads the last indexed commit of every map in one query, then skips repos that have not
+///   changed since they were last indexed
+/// - With an auth token, fetches the head commit of every repo in a few GraphQL requests
 /// - Checks each map repo for a 'map.yml' and reads the map name and version
 /// - Deletes from database maps that have been removed
 /// - Upserts latest map info into database
+///
+/// A pass is shared by every node with map indexing enabled through the [MapIndexingJobDao] queue.
+/// [#enqueueRun] lists the repos and queues one job per repo, unless another node started a pass
+/// less than `minRunInterval` ago; [#processJobs] then claims and indexes queued jobs until none
+/// are left, whichever node queued them. A job is leased for `leaseDuration`, after which a job
+/// left behind by a node that died is claimed again.
+///
+/// Changes to the listing are published to [#listingChangeListener] as chunks of jobs commit, at
+/// most once per `listingRefreshInterval`, and once more when the node runs out of jobs or a pass
+/// that changed the listing finishes; so a repo that keeps failing does not hold back the maps
+/// indexed around it.
+///
+/// Each node indexes `parallelism` repos at a time on virtual threads. Most of the work is waiting
+/// on raw-content downloads, which are not rate limited; the calls that are (to the GitHub API) are
+/// paced by the [GithubClient]'s own rate limiter.
+///
+/// A repo that cannot be indexed for good (no readable `map.yml`, say) is recorded as a repo error
+/// and its map disabled. Any other failure, such as a download or GitHub API call that timed out
+/// or got a server error, is taken as transient: the map is left as it is, and its job is retried
+/// after a jittered, exponentially growing delay (see [#retryDelay]) until it runs out of
+/// attempts. Repeated transient failures trip the node's [IndexingCircuitBreaker], which pauses
+/// its work on the pass until GitHub has had time to recover.
 @Builder
 @Slf4j
 class MapIndexingTaskRunner implements Runnable {
+  /// How many times a job is claimed before it is given up on until the next pass.
+  @VisibleForTesting static final int MAX_JOB_ATTEMPTS = 5;
+
+  /// The delay before the first retry of a transient failure, doubling with each attempt.
+  private static final Duration RETRY_BASE_DELAY = Duration.ofSeconds(30);
+
+  private static final Duration RETRY_MAX_DELAY = Duration.ofMinutes(15);
 
   @Nonnull private final MapIndexDao mapIndexDao;
+  @Nonnull private final MapIndexingJobDao jobDao;
   @Nonnull private final GithubClient githubClient;
   @Nonnull private final MapIndexer mapIndexer;
 
+  /// Notified when indexing wrote to `map_index`, so cached views of the listing can be rebuilt.
+  @Nonnull private final Runnable listingChangeListener;
+
+  /// How long after notifying [#listingChangeListener] further chunks' changes are held back, so
+  /// that a pass does not rebuild the listing for every chunk.
+  @Builder.Default private final Duration listingRefreshInterval = Duration.ofSeconds(30);
+
+  /// How many repos are indexed at the same time.
+  private final int parallelism;
+
+  /// How many jobs a worker claims at once; their results are written together.
+  private final int batchSize;
+
+  /// Names this node as the holder of its job leases.
+  @Nonnull private final String workerId;
+
+  /// How long a claimed job is reserved for its worker.
+  @Nonnull private final Duration leaseDuration;
+
+  /// A pass started by any node less than this long ago stands in for a new one.
+  @Nonnull private final Duration minRunInterval;
+
+  /// Pauses this node's work on a pass while transient failures keep coming.
+  @Builder.Default
+  private final IndexingCircuitBreaker circuitBreaker =
+      new IndexingCircuitBreaker(5, Duration.ofMinutes(5));
+
+  private final AtomicBoolean processingJobs = new AtomicBoolean();
+
+  /// Whether this node committed listing changes that [#listingChangeListener] has not been told
+  /// of yet.
+  private final AtomicBoolean listingChangePending = new AtomicBoolean();
+
+  /// [System#nanoTime] of the last notification of [#listingChangeListener].
+  private final AtomicLong listingChangeReportedAtNanos = new AtomicLong(System.nanoTime());
+
+  /// Starts a pass, unless another node just did, and works on its jobs.
   @Override
   public void run() {
-    log.info("Map indexing started");
-    long startTimeEpochMillis = System.currentTimeMillis();
+    enqueueRun();
+    processJobs();
+  }
+
+  /// Starts a pass: lists the map repos, disables the maps of repos that are gone and queues a job
+  /// for every other repo. Does nothing if a pass was started less than `minRunInterval` ago.
+  ///
+  /// The repos and their branch heads are fetched before the run is started, so that the run and
+  /// its jobs can be committed together (see [MapIndexingJobDao#startRun]).
+  void enqueueRun() {
+    if (jobDao.runStartedWithin(minRunInterval)) {
+      log.info("Map indexing pass already started by another node, joining it");
+      return;
+    }
 
     // get list of maps
     final Collection<MapRepoListing> mapUris =
@@ -40,72 +136,352 @@ class MapIndexingTaskRunner implements Runnable {
             .sorted(Comparator.comparing(MapRepoListing::getUri))
             .toList();
 
-    int totalNumberMaps = mapUris.size();
-
-    // disable maps whose repo is no longer on Github (kept in the table, flagged 'DELETED')
-    int mapsDisabled =
-        mapIndexDao.disableMapsNotIn(
-            mapUris.stream()
-                .map(MapRepoListing::getUri)
-                .map(URI::toString)
-                .collect(Collectors.toList()));
-
-    // Start indexing -
-    // create a stack of maps that we might need to index, pull one off at a time and do the
-    // indexing.
-    // Sleep between iterations to avoid rate limits.
-    int mapsIndexed = 0;
-    int errors = 0;
-    for (var listing : mapUris) {
+    // disable maps whose repo is no longer on Github (kept in the table, flagged 'DELETED'); an
+    // empty listing is far more likely a Github hiccup than every repo being deleted
+    List<String> mapsDisabled =
+        mapUris.isEmpty()
+            ? List.of()
+            : mapIndexDao.disableMapsNotIn(
+                mapUris.stream().map(MapRepoListing::getUri).map(URI::toString).toList());
+    if (!mapsDisabled.isEmpty()) {
+      log.info("Disabled maps whose repo is no longer on Github: {}", mapsDisabled);
+      listingChangePending.set(true);
+    }
+
+    OptionalLong startedRun =
+        jobDao.startRun(minRunInterval, mapUris, fetchBranchHeads(), !mapsDisabled.isEmpty());
+    if (startedRun.isEmpty()) {
+      log.info("Map indexing pass started by another node meanwhile, joining it");
+      return;
+    }
+    long runId = startedRun.getAsLong();
+    log.info(
+        "Map indexing run {} queued, repos found: {}, maps disabled (no longer on Github): {}",
+        runId,
+        mapUris.size(),
+        mapsDisabled.size());
+  }
+
+  /// Claims and indexes queued jobs, `parallelism` at a time, until none are left to claim; then
+  /// finishes every pass that has no jobs left and publishes any listing change not yet reported.
+  /// Returns straight away if this node is already working on jobs, and claims nothing while the
+  /// circuit breaker is open.
+  void processJobs() {
+    if (circuitBreaker.isOpen()) {
+      log.info(
+          "Map indexing paused after repeated transient failures, resuming in {}",
+          circuitBreaker.openFor());
+      finishRuns();
+      return;
+    }
+    if (!processingJobs.compareAndSet(false, true)) {
+      return;
+    }
+    long startTimeEpochMillis = System.currentTimeMillis();
+    AtomicInteger mapsIndexed = new AtomicInteger();
+    AtomicInteger errors = new AtomicInteger();
+    // What the database knows about every repo, read once when the first jobs are claimed. Each
+    // repo is written by whoever holds its job, so the snapshot stays good for these jobs; at
+    // worst a repo re-indexed meanwhile through the webhook is indexed again.
+    Supplier<Map<String, MapIndexDao.IndexedState>> indexedStates =
+        Suppliers.memoize(mapIndexDao::loadIndexedStates);
+    try {
+      // Each worker claims its next job as soon as it is done with the last; closing the executor
+      // waits for all of them to run out of jobs.
+      try (ExecutorService indexers =
+          Executors.newFixedThreadPool(
+              parallelism, Thread.ofVirtual().name("map-indexer-", 0).factory())) {
+        for (int i = 0; i < parallelism; i++) {
+          indexers.execute(
+              () -> {
+                try {
+                  for (List<MapIndexingJobDao.Job> jobs = claimJobs();
+                      !jobs.isEmpty();
+                      jobs = claimJobs()) {
+                    int indexed = processJobs(jobs, indexedStates.get());
+                    mapsIndexed.addAndGet(indexed);
+                    errors.addAndGet(jobs.size() - indexed);
+                  }
+                } catch (RuntimeException e) {
+                  log.error("Error claiming map indexing jobs", e);
+                }
+              });
+        }
+      }
+    } finally {
+      processingJobs.set(false);
+    }
+
+    if (mapsIndexed.get() > 0 || errors.get() > 0) {
+      log.info(
+          "Map indexing jobs processed in {} ms, repos indexed: {}, errors encountered: {}",
+          (System.currentTimeMillis() - startTimeEpochMillis),
+          mapsIndexed.get(),
+          errors.get());
+    }
+    finishRuns();
+  }
+
+  private List<MapIndexingJobDao.Job> claimJobs() {
+    return circuitBreaker.isOpen()
+        ? List.of()
+        : jobDao.claim(workerId, leaseDuration, MAX_JOB_ATTEMPTS, batchSize);
+  }
+
+  /// Indexes the repos of a chunk of claimed jobs, then records all of their outcomes and completes
+  /// the jobs in one go. Jobs whose indexing failed for a transient reason are put off to be tried
+  /// again, and so are the rest of the chunk once the circuit breaker opens. Returns how many jobs
+  /// were completed.
+  private int processJobs(
+      List<MapIndexingJobDao.Job> jobs, Map<String, MapIndexDao.IndexedState> indexedStates) {
+    List<MapIndexingJobDao.Job> indexedJobs = new ArrayList<>();
+    List<IndexedRepo> indexedRepos = new ArrayList<>();
+    for (MapIndexingJobDao.Job job : jobs) {
+      if (circuitBreaker.isOpen()) {
+        // not tried, so the claim does not count as an attempt
+        jobDao.retryLater(job, circuitBreaker.openFor(), false);
+        continue;
+      }
+      MapRepoListing listing = job.listing();
       log.info("Indexing map: {}", listing.getUri());
       try {
-        IndexingResult result = index(listing);
-        mapIndexDao.recordIndexingStatus(listing, result);
-        mapsIndexed++;
+        IndexedRepo indexed =
+            evaluate(listing, job.headCommitDate(), indexedStates.get(listing.getUri().toString()));
+        indexedRepos.add(indexed);
+        indexedJobs.add(job);
+        // only a request that got through shows GitHub is back; a repo found up to date from the
+        // listing or the branch heads says nothing about it
+        if (indexed.requestedGithub()) {
+          circuitBreaker.recordSuccess();
+        }
       } catch (Exception e) {
-        log.error("Error indexing map: " + listing.getUri(), e);
-        errors++;
-      }
-      try {
-        Thread.sleep(GithubClient.GITHUB_MIN_REQUEST_INTERVAL_MS);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        throw new RuntimeException("System aborted, process terminated while sleeping");
+        retryLater(job, e);
       }
     }
+    if (indexedJobs.isEmpty()) {
+      return 0;
+    }
 
-    log.info(
-        "Map indexing finished in {} ms,"
-            + " repos found: {},"
-            + " repos with map.yml: {},"
-            + " maps disabled (no longer on Github): {},"
-            + " errors encountered: {}",
-        (System.currentTimeMillis() - startTimeEpochMillis),
-        totalNumberMaps,
-        mapsIndexed,
-        mapsDisabled,
-        errors);
+    try {
+      mapIndexDao.recordResults(indexedRepos);
+    } catch (RuntimeException e) {
+      log.error("Error saving indexing results, retrying {} jobs later", indexedJobs.size(), e);
+      indexedJobs.forEach(job -> jobDao.retryLater(job, retryDelay(job.attempts()), true));
+      return 0;
+    }
+    boolean listingChanged =
+        indexedRepos.stream()
+            .anyMatch(
+                indexed ->
+                    indexed.result().resultCode
+                        != IndexingResult.ResultCode.INDEXING_IS_UP_TO_DATE);
+    int completed = jobDao.complete(indexedJobs, listingChanged);
+    if (completed < indexedJobs.size()) {
+      log.warn(
+          "Leases on {} indexing jobs expired before they finished",
+          indexedJobs.size() - completed);
+    }
+    if (listingChanged) {
+      listingChangePending.set(true);
+      reportListingChange(false);
+    }
+    return indexedJobs.size();
+  }
+
+  /// Puts off a job whose indexing failed for a transient reason, recording the failure in the
+  /// repo's status: it is retried after [#retryDelay], or, on its last attempt, left to the next
+  /// pass. The failure counts towards opening the circuit breaker.
+  private void retryLater(MapIndexingJobDao.Job job, Exception failure) {
+    MapRepoListing listing = job.listing();
+    boolean lastAttempt = job.attempts() >= MAX_JOB_ATTEMPTS;
+    Duration delay = lastAttempt ? Duration.ZERO : retryDelay(job.attempts());
+    log.warn(
+        "Transient error indexing map: {}, attempt {} of {}{}",
+        listing.getUri(),
+        job.attempts(),
+        MAX_JOB_ATTEMPTS,
+        lastAttempt ? "" : ", retrying in " + delay,
+        failure);
+    try {
+      mapIndexDao.recordRetry(
+          listing, errorText(failure), lastAttempt ? null : Instant.now().plus(delay));
+    } catch (RuntimeException e) {
+      log.error("Error recording indexing status of: " + listing.getUri(), e);
+    }
+    jobDao.retryLater(job, delay, true);
+    if (circuitBreaker.recordFailure()) {
+      log.warn(
+          "Pausing map indexing for {} after repeated transient failures",
+          circuitBreaker.openFor());
+    }
+  }
+
+  /// How long to wait before retrying a job that failed on its `attempts`-th attempt: 30 seconds
+  /// doubling with each attempt, up to 15 minutes, times a random factor between 0.5 and 1.5 so
+  /// that repos failing together are not all retried at the same moment.
+  @VisibleForTesting
+  static Duration retryDelay(int attempts) {
+    long exponential = RETRY_BASE_DELAY.toMillis() << Math.min(Math.max(attempts - 1, 0), 20);
+    long capped = Math.min(exponential, RETRY_MAX_DELAY.toMillis());
+    return Duration.ofMillis((long) (capped * ThreadLocalRandom.current().nextDouble(0.5, 1.5)));
+  }
+
+  private static String errorText(Exception failure) {
+    return failure.getMessage() == null ? failure.toString() : failure.getMessage();
+  }
+
+  /// Gives up on jobs that ran out of attempts and marks passes with no jobs left as finished; then
+  /// notifies [#listingChangeListener] once if any of them, or this node since it last did, changed
+  /// the listing.
+  private void finishRuns() {
+    List<String> abandoned = jobDao.dropExhaustedJobs(MAX_JOB_ATTEMPTS);
+    if (!abandoned.isEmpty()) {
+      log.warn(
+          "Gave up indexing after {} attempts, until the next pass: {}",
+          MAX_JOB_ATTEMPTS,
+          abandoned);
+    }
+    boolean listingChanged = false;
+    for (MapIndexingJobDao.FinishedRun finished : jobDao.finishRuns()) {
+      log.info(
+          "Map indexing run {} finished in {} ms",
+          finished.id(),
+          Duration.between(finished.startedAt(), Instant.now()).toMillis());
+      listingChanged |= finished.listingChanged();
+    }
+    if (listingChanged) {
+      listingChangePending.set(true);
+    }
+    reportListingChange(true);
+  }
+
+  /// Notifies [#listingChangeListener] of pending listing changes, unless that was done less than
+  /// `listingRefreshInterval` ago and not `now`. Of workers reporting at the same moment, one
+  /// notifies the listener on behalf of all of them.
+  private void reportListingChange(boolean now) {
+    if (!listingChangePending.get()) {
+      return;
+    }
+    long reportedAt = listingChangeReportedAtNanos.get();
+    long time = System.nanoTime();
+    if (!now && time - reportedAt < listingRefreshInterval.toNanos()) {
+      return;
+    }
+    if (listingChangeReportedAtNanos.compareAndSet(reportedAt, time)
+        && listingChangePending.getAndSet(false)) {
+      listingChangeListener.run();
+    }
+  }
+
+  /// The last commit date on the default branch of every repo, by repo URL, fetched up front in a
+  /// few GraphQL requests so that telling which repos changed costs no per-repo API call. Empty
+  /// without an auth token or if the query fails; repos then fall back to a REST branch request.
+  private Map<String, Instant> fetchBranchHeads() {
+    if (!githubClient.supportsGraphql()) {
+      return Map.of();
+    }
+    try {
+      return githubClient.fetchDefaultBranchHeads().stream()
+          .collect(
+              Collectors.toMap(
+                  BranchHead::getRepoUri, BranchHead::getLastCommitDate, (first, second) -> first));
+    } catch (RuntimeException e) {
+      log.warn("Failed to fetch branch heads through GraphQL, fetching them per repo", e);
+      return Map.of();
+    }
+  }
+
+  /// Indexes a single repo outside of a full pass, for instance when Github reports a push to it,
+  /// and reports a listing change straight away.
+  ///
+  /// The repo is indexed even if its head commit is the one already indexed: a `repository` event
+  /// such as a default branch rename changes where the map is downloaded from without a new
+  /// commit.
+  IndexingResult reindex(MapRepoListing listing) {
+    log.info("Re-indexing map: {}", listing.getUri());
+    IndexingResult result = index(listing, true);
+    if (result.resultCode != IndexingResult.ResultCode.INDEXING_IS_UP_TO_DATE) {
+      listingChangeListener.run();
+    }
+    return result;
   }
 
   @VisibleForTesting
   IndexingResult index(MapRepoListing listing) {
-    Instant latestCommitInDatabase =
-        mapIndexDao.getLastCommitDate(listing.getUri().toString()).orElse(null);
-    Instant latestCommitOnGithub =
-        githubClient.getLatestCommitDate(listing.getName(), listing.getDefaultBranch());
+    return index(listing, false);
+  }
+
+  /// Indexes one repo and records the outcome straight away (see [#evaluate]); with `force`, as if
+  /// the database knew nothing of it, so that it is never found up to date. A transient failure is
+  /// recorded without a retry time and rethrown; the repo is retried on the next pass.
+  private IndexingResult index(MapRepoListing listing, boolean force) {
+    IndexedRepo indexed;
+    try {
+      indexed =
+          evaluate(
+              listing,
+              null,
+              force
+                  ? null
+                  : mapIndexDao.findIndexedState(listing.getUri().toString()).orElse(null));
+    } catch (RuntimeException e) {
+      mapIndexDao.recordRetry(listing, errorText(e), null);
+      throw e;
+    }
+    mapIndexDao.recordResults(List.of(indexed));
+    return indexed.result();
+  }
+
+  /// Indexes one repo without writing anything, returning what is to be recorded. `indexed` is
+  /// what the database knows of the repo, null if it has no map yet.
+  ///
+  /// A repo whose listing shows no change since its last clean pass is up to date without any API
+  /// call. Otherwise the last commit on its default branch is `headCommitDate` or, if that was not
+  /// fetched up front, fetched now, and the repo is only indexed if that commit is newer than the
+  /// one in the database. A repo whose default branch is not the one its map was indexed from is
+  /// always indexed: the new branch's head may well be older than the old one's.
+  ///
+  /// A [MapIndexer.IndexingException] means the repo itself is broken, and comes back as a repo
+  /// error; any other exception is a transient failure and is thrown.
+  private IndexedRepo evaluate(
+      MapRepoListing listing,
+      @Nullable Instant headCommitDate,
+      @Nullable MapIndexDao.IndexedState indexed) {
+    Instant lastChanged = listing.getLastChanged();
+    boolean branchChanged =
+        indexed != null && !listing.getDefaultBranch().equals(indexed.defaultBranch());
+    if (lastChanged != null
+        && indexed != null
+        && !branchChanged
+        && indexed.repoChangedAt() != null
+        && !lastChanged.isAfter(indexed.repoChangedAt())) {
+      return IndexedRepo.upToDate(listing, false);
+    }
+    Instant latestCommitInDatabase = indexed == null ? null : indexed.lastCommitDate();
+    Instant latestCommitOnGithub = headCommitDate;
+    boolean requestedGithub = latestCommitOnGithub == null;
+    if (requestedGithub) {
+      latestCommitOnGithub =
+          githubClient.getLatestCommitDate(listing.getName(), listing.getDefaultBranch());
+    }
     boolean runIndexing =
-        (latestCommitInDatabase == null) || latestCommitOnGithub.isAfter(latestCommitInDatabase);
+        (latestCommitInDatabase == null)
+            || branchChanged
+            || latestCommitOnGithub.isAfter(latestCommitInDatabase);
     if (runIndexing) {
       try {
-        MapIndex result = mapIndexer.apply(listing);
-        mapIndexDao.upsert(result);
-        return new IndexingResult(IndexingResult.ResultCode.SUCCESSFULLY_INDEXED, List.of());
+        return new IndexedRepo(
+            listing,
+            new IndexingResult(IndexingResult.ResultCode.SUCCESSFULLY_INDEXED, List.of()),
+            mapIndexer.apply(listing, latestCommitOnGithub));
       } catch (MapIndexer.IndexingException e) {
         // Record the failure as a disabled map_index row so the error surfaces on the status page.
         // The map's real name/size may have been unreadable (that is often the error), so we fall
         // back to the repo name and size 0, and reuse the commit date already fetched above. For a
         // previously-indexed map the upsert keeps its existing metadata and only disables it.
-        mapIndexDao.upsertDisabled(
+        return new IndexedRepo(
+            listing,
+            new IndexingResult(IndexingResult.ResultCode.REPO_ERROR, e.getErrors()),
             MapIndex.builder()
                 .mapName(listing.getName())
                 .mapRepoUri(listing.getUri().toString())
@@ -115,12 +491,10 @@ class MapIndexingTaskRunner implements Runnable {
                 .downloadUri(MapIndexer.downloadUri(listing))
                 .previewImageUri(MapIndexer.previewImageUri(listing))
                 .mapDownloadSizeInBytes(0L)
-                .build(),
-            String.join("\n\n", e.getErrors()));
-        return new IndexingResult(IndexingResult.ResultCode.REPO_ERROR, e.getErrors());
+                .build());
       }
     } else {
-      return new IndexingResult(IndexingResult.ResultCode.INDEXING_IS_UP_TO_DATE, List.of());
+      return IndexedRepo.upToDate(listing, requestedGithub);
     }
   }
 
@@ -129,10 +503,35 @@ class MapIndexingTaskRunner implements Runnable {
     enum ResultCode {
       INDEXING_IS_UP_TO_DATE,
       SUCCESSFULLY_INDEXED,
-      REPO_ERROR
+      REPO_ERROR,
+      /// Recorded in `map_indexing_status` only: indexing failed for a transient reason and the
+      /// repo is retried without touching its map.
+      TEMPORARY_ERROR
     }
 
     ResultCode resultCode;
     List<String> errorDetails;
   }
+
+  /// The outcome of indexing one repo, as it is to be recorded: the result, and the `map_index`
+  /// row to upsert (enabled when successfully indexed, disabled with the errors on a repo error,
+  /// null when up to date). `requestedGithub` tells whether finding it out took a request to
+  /// GitHub, as indexing a repo always does.
+  record IndexedRepo(
+      MapRepoListing listing,
+      IndexingResult result,
+      @Nullable MapIndex mapIndex,
+      boolean requestedGithub) {
+    IndexedRepo(MapRepoListing listing, IndexingResult result, @Nullable MapIndex mapIndex) {
+      this(listing, result, mapIndex, true);
+    }
+
+    static IndexedRepo upToDate(MapRepoListing listing, boolean requestedGithub) {
+      return new IndexedRepo(
+          listing,
+          new IndexingResult(IndexingResult.ResultCode.INDEXING_IS_UP_TO_DATE, List.of()),
+          null,
+          requestedGithub);
+    }
+  }
 }
@@ -0,0 +1,73 @@
+package org.triplea.services.maps.indexing;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.triplea.http.client.github.MapRepoListing;
+
+/// Re-indexes single repos on request, coalescing bursts: a repo is indexed `delay` after the first
+/// request for it, and further requests for the same repo in the meantime are absorbed by that one
+/// run. A request that arrives while the repo is being indexed schedules one more run, so the last
+/// push is never missed.
+///
+/// Repos are indexed one at a time on a single background thread.
+@Slf4j
+class MapReindexQueue implements AutoCloseable {
+  private final Consumer<MapRepoListing> indexer;
+  private final Duration delay;
+  private final ScheduledExecutorService executor;
+
+  /// Pending repos by URL; the latest request's listing wins.
+  private final Map<String, MapRepoListing> pending = new ConcurrentHashMap<>();
+
+  MapReindexQueue(Consumer<MapRepoListing> indexer, Duration delay) {
+    this(
+        indexer,
+        delay,
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "map-reindex");
+              thread.setDaemon(true);
+              return thread;
+            }));
+  }
+
+  @VisibleForTesting
+  MapReindexQueue(
+      Consumer<MapRepoListing> indexer, Duration delay, ScheduledExecutorService executor) {
+    this.indexer = indexer;
+    this.delay = delay;
+    this.executor = executor;
+  }
+
+  /// Schedules `listing`'s repo to be re-indexed, unless it already is.
+  void enqueue(MapRepoListing listing) {
+    String repoUrl = listing.getUri().toString();
+    if (pending.put(repoUrl, listing) == null) {
+      executor.schedule(() -> indexPending(repoUrl), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void indexPending(String repoUrl) {
+    MapRepoListing listing = pending.remove(repoUrl);
+    if (listing == null) {
+      return;
+    }
+    try {
+      indexer.accept(listing);
+    } catch (RuntimeException e) {
+      log.error("Error re-indexing map: " + repoUrl, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
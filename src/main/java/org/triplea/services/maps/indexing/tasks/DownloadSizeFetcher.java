@@ -1,32 +1,46 @@
 package org.triplea.services.maps.indexing.tasks;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.AccessLevel;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.triplea.utils.FileUtils;
 import org.triplea.utils.ThrowingFunction;
 
 /// Given a map repo, determines the map download size.
 ///
-/// Implementation note: download size is determined by downloading the entire file at the given
-/// URI to a temp file and then returning the size of that temp file. The temp file is then deleted.
+/// Implementation note: the size is first asked of the server, with a `HEAD` request and then a
+/// `Range: bytes=0-0` request, either of which reports it without sending the file. Servers that
+/// generate the archive on the fly (as GitHub does for branch zips) often report neither, and then
+/// the file is downloaded and its bytes counted as they stream past; nothing is written to disk.
+///
+/// A network error while downloading, or a status that asks to retry, throws
+/// [TransientDownloadException]; a file that is not there (any other status) is empty.
 @Slf4j
 public class DownloadSizeFetcher implements Function<URI, Optional<Long>> {
   private static final HttpClient HTTP_CLIENT =
       HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
 
+  /// The total length in a `Content-Range` header, e.g. `bytes 0-0/12345`.
+  private static final Pattern CONTENT_RANGE_TOTAL = Pattern.compile("^bytes \\d+-\\d+/(\\d+)$");
+
+  @Setter(value = AccessLevel.PACKAGE, onMethod_ = @VisibleForTesting)
+  private ThrowingFunction<URI, OptionalLong, IOException> sizeProbe =
+      DownloadSizeFetcher::probeSize;
+
   @SuppressWarnings("resource")
   @Setter(value = AccessLevel.PACKAGE, onMethod_ = @VisibleForTesting)
   private ThrowingFunction<URI, InputStream, IOException> downloadFunction =
@@ -35,6 +49,14 @@ public class DownloadSizeFetcher implements Function<URI, Optional<Long>> {
           HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
           HttpResponse<InputStream> response =
               HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+          int status = response.statusCode();
+          if (status != 200) {
+            response.body().close();
+            if (TransientDownloadException.isTransientStatus(status)) {
+              throw new TransientDownloadException(uri, status);
+            }
+            throw new FileNotFoundException("Download failed with status " + status);
+          }
           return response.body();
         } catch (InterruptedException e) {
           Thread.currentThread().interrupt();
@@ -44,22 +66,72 @@ public class DownloadSizeFetcher implements Function<URI, Optional<Long>> {
 
   @Override
   public Optional<Long> apply(URI uri) {
+    try {
+      OptionalLong reportedSize = sizeProbe.apply(uri);
+      if (reportedSize.isPresent()) {
+        return Optional.of(reportedSize.getAsLong());
+      }
+    } catch (final IOException e) {
+      log.info("Could not ask for the size of {}, downloading it instead: {}", uri, e.getMessage());
+    }
+
     log.info("Checking file size, downloading: {}", uri);
-    final Path tempFile = FileUtils.createTempFile().orElse(null);
-    if (tempFile == null) {
+    try (InputStream download = downloadFunction.apply(uri)) {
+      return Optional.of(download.transferTo(OutputStream.nullOutputStream()));
+    } catch (final FileNotFoundException e) {
+      log.error("Error downloading: {}, {}", uri, e.getMessage(), e);
       return Optional.empty();
+    } catch (final IOException e) {
+      throw new TransientDownloadException(uri, e);
     }
+  }
 
-    // download the file at the given URI, the copy method will return the file sizes in bytes.
+  /// Asks the server for the size of the file at `uri` without downloading it: the
+  /// `Content-Length` of a `HEAD` response, or else the total of the `Content-Range` of a one-byte
+  /// range request. Empty if the server reports neither.
+  @VisibleForTesting
+  static OptionalLong probeSize(URI uri) throws IOException {
     try {
-      final long fileSize =
-          Files.copy(downloadFunction.apply(uri), tempFile, StandardCopyOption.REPLACE_EXISTING);
-      FileUtils.delete(tempFile);
-      return Optional.of(fileSize);
-    } catch (final IOException e) {
-      log.error("Error downloading: {}, {}", uri, e.getMessage(), e);
-      FileUtils.delete(tempFile);
-      return Optional.empty();
+      HttpResponse<Void> head =
+          HTTP_CLIENT.send(
+              HttpRequest.newBuilder(uri)
+                  .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                  .build(),
+              HttpResponse.BodyHandlers.discarding());
+      if (head.statusCode() == 200) {
+        OptionalLong length = contentLength(head.headers());
+        if (length.isPresent()) {
+          return length;
+        }
+      }
+
+      HttpResponse<InputStream> range =
+          HTTP_CLIENT.send(
+              HttpRequest.newBuilder(uri).header("Range", "bytes=0-0").GET().build(),
+              HttpResponse.BodyHandlers.ofInputStream());
+      // Closing the body without reading it abandons the response if the server ignored the range
+      // and started sending the whole file.
+      try (InputStream ignored = range.body()) {
+        if (range.statusCode() == 206) {
+          return range
+              .headers()
+              .firstValue("Content-Range")
+              .map(CONTENT_RANGE_TOTAL::matcher)
+              .filter(Matcher::matches)
+              .map(total -> OptionalLong.of(Long.parseLong(total.group(1))))
+              .orElse(OptionalLong.empty());
+        }
+        return range.statusCode() == 200 ? contentLength(range.headers()) : OptionalLong.empty();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Size check interrupted", e);
     }
   }
+
+  /// A positive `Content-Length`; a zero length on a `HEAD` response usually means "unknown".
+  private static OptionalLong contentLength(HttpHeaders headers) {
+    OptionalLong length = headers.firstValueAsLong("Content-Length");
+    return length.isPresent() && length.getAsLong() > 0 ? length : OptionalLong.empty();
+  }
 }
@@ -0,0 +1,98 @@
+package org.triplea.services.maps.indexing.tasks;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.CountingInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.triplea.utils.ThrowingFunction;
+
+/// Given a map's download URI, streams the map archive once and returns everything indexing needs
+/// from it: the contents of `map.yml` and `description.html` at the root of the repo, and the size
+/// of the archive. All three therefore come from the same commit, for the cost of one download.
+///
+/// The archive is never held in memory or written to disk: entries other than the two files are
+/// skipped as they stream past, and the bytes are counted on the way in.
+///
+/// A network error, or a status that asks to retry, throws [TransientDownloadException]; an
+/// archive that is not there (any other status) or is not a zip file is empty.
+@Slf4j
+public class MapArchiveReader implements Function<URI, Optional<MapArchiveReader.MapArchive>> {
+  private static final HttpClient HTTP_CLIENT =
+      HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+
+  /// What indexing reads from a map archive. `mapYml` and `descriptionHtml` are null if the repo
+  /// has no such file at its root.
+  public record MapArchive(String mapYml, String descriptionHtml, long sizeInBytes) {}
+
+  @SuppressWarnings("resource")
+  @Setter(value = AccessLevel.PACKAGE, onMethod_ = @VisibleForTesting)
+  private ThrowingFunction<URI, InputStream, IOException> downloadFunction =
+      uri -> {
+        try {
+          HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+          HttpResponse<InputStream> response =
+              HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+          int status = response.statusCode();
+          if (status != 200) {
+            response.body().close();
+            if (TransientDownloadException.isTransientStatus(status)) {
+              throw new TransientDownloadException(uri, status);
+            }
+            throw new FileNotFoundException("Download failed with status " + status);
+          }
+          return response.body();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Download interrupted", e);
+        }
+      };
+
+  @Override
+  public Optional<MapArchive> apply(URI uri) {
+    log.info("Reading map archive: {}", uri);
+    try (CountingInputStream download = new CountingInputStream(downloadFunction.apply(uri));
+        ZipInputStream zip = new ZipInputStream(download)) {
+      String mapYml = null;
+      String descriptionHtml = null;
+      for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+        switch (pathInRepo(entry.getName())) {
+          case "map.yml" -> mapYml = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+          case "description.html" ->
+              descriptionHtml = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+          default -> {
+            // skipped by the next getNextEntry()
+          }
+        }
+      }
+      // The zip stream stops at the central directory; it counts towards the download size too.
+      download.transferTo(OutputStream.nullOutputStream());
+      return Optional.of(new MapArchive(mapYml, descriptionHtml, download.getCount()));
+    } catch (final FileNotFoundException | ZipException e) {
+      log.error("Error reading map archive: {}, {}", uri, e.getMessage(), e);
+      return Optional.empty();
+    } catch (final IOException e) {
+      throw new TransientDownloadException(uri, e);
+    }
+  }
+
+  /// An entry's path relative to the repo root. GitHub puts every file of a branch archive under a
+  /// single `<repo>-<branch>/` directory.
+  private static String pathInRepo(String entryName) {
+    return entryName.substring(entryName.indexOf('/') + 1);
+  }
+}
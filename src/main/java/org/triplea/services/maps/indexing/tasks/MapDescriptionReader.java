@@ -11,7 +11,8 @@ import org.triplea.http.client.github.MapRepoListing;
 
 /// A function where if given a map repo listing will find the 'description.html' file in that repo
 /// and returns its contents. If the contents are too long or the file is missing then will return a
-/// 'description-missing' error message with details on how to fix it.
+/// 'description-missing' error message with details on how to fix it. A network error, or a status
+/// that asks to retry, throws [TransientDownloadException] rather than pass for a missing file.
 public class MapDescriptionReader implements Function<MapRepoListing, String> {
   private static final int DESCRIPTION_COLUMN_DATABASE_MAX_LENGTH = 3000;
   private static final HttpClient HTTP_CLIENT =
@@ -19,7 +20,12 @@ public class MapDescriptionReader implements Function<MapRepoListing, String> {
 
   @Override
   public String apply(final MapRepoListing mapRepoListing) {
-    final String description = downloadDescription(mapRepoListing).orElse(null);
+    return describe(downloadDescription(mapRepoListing).orElse(null), mapRepoListing);
+  }
+
+  /// Returns the map description to store: `description`, the contents of the repo's
+  /// 'description.html', or an error message if it is missing (null) or too long.
+  public static String describe(final String description, final MapRepoListing mapRepoListing) {
     if (description == null) {
       return String.format(
           "No description available for: %s. "
@@ -47,12 +53,16 @@ public class MapDescriptionReader implements Function<MapRepoListing, String> {
       HttpRequest request = HttpRequest.newBuilder(descriptionUri).GET().build();
       HttpResponse<String> response =
           HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+      if (TransientDownloadException.isTransientStatus(response.statusCode())) {
+        throw new TransientDownloadException(descriptionUri, response.statusCode());
+      }
       return response.statusCode() == 200 ? Optional.of(response.body()) : Optional.empty();
     } catch (IOException e) {
-      return Optional.empty();
+      throw new TransientDownloadException(descriptionUri, e);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
-      return Optional.empty();
+      throw new TransientDownloadException(
+          descriptionUri, new IOException("Download interrupted", e));
     }
   }
 }
@@ -22,7 +22,8 @@ public class MapNameReader implements Function<MapRepoListing, Optional<String>>
   private static final HttpClient HTTP_CLIENT =
       HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
 
-  /* Function to download content as a string, returns null if the download fails or returns a non-200 status. */
+  /* Function to download content as a string, returns null if the download returns a non-200 status.
+   * Throws TransientDownloadException on a network error or a status worth retrying. */
   @Setter(value = AccessLevel.PACKAGE, onMethod_ = @VisibleForTesting)
   @Builder.Default
   private Function<URI, String> downloadFunction =
@@ -31,12 +32,15 @@ public class MapNameReader implements Function<MapRepoListing, Optional<String>>
           HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
           HttpResponse<String> response =
               HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+          if (TransientDownloadException.isTransientStatus(response.statusCode())) {
+            throw new TransientDownloadException(uri, response.statusCode());
+          }
           return response.statusCode() == 200 ? response.body() : null;
         } catch (IOException e) {
-          return null;
+          throw new TransientDownloadException(uri, e);
         } catch (InterruptedException e) {
           Thread.currentThread().interrupt();
-          return null;
+          throw new TransientDownloadException(uri, new IOException("Download interrupted", e));
         }
       };
 
@@ -60,8 +64,12 @@ public class MapNameReader implements Function<MapRepoListing, Optional<String>>
       log.warn("Could not index, missing map.yml. Expected URI: {}", mapYmlUri);
       return Optional.empty();
     }
+    return readMapName(mapYamlContents, mapYmlUri);
+  }
 
-    // parse and return the 'map_name' attribute from the YML file we just downloaded
+  /// Reads and returns the 'map_name' attribute of the given map.yml contents, read from
+  /// `mapYmlUri`. Returns an empty if the contents are not valid YAML or have no map name.
+  public static Optional<String> readMapName(String mapYamlContents, URI mapYmlUri) {
     try {
       final Map<String, Object> mapYamlData = YamlReader.readMap(mapYamlContents);
       return Optional.of((String) mapYamlData.get("map_name"));
@@ -0,0 +1,25 @@
+package org.triplea.services.maps.indexing.tasks;
+
+import java.io.IOException;
+import java.net.URI;
+
+/// Thrown when a map file could not be downloaded for a reason that is likely to clear up on its
+/// own: a network error, or a status that asks to try again later (408, 429 or any 5xx). Indexing
+/// treats it as transient and retries the repo later, rather than recording the map as broken.
+///
+/// A download that fails for good (any other non-200 status, or a file that is not what it should
+/// be) is reported by the tasks as empty instead.
+public class TransientDownloadException extends RuntimeException {
+  public TransientDownloadException(URI uri, IOException cause) {
+    super("Error downloading " + uri + ": " + cause.getMessage(), cause);
+  }
+
+  public TransientDownloadException(URI uri, int status) {
+    super("Download of " + uri + " failed with status " + status);
+  }
+
+  /// Whether a download that ended with `status` is worth trying again later.
+  public static boolean isTransientStatus(int status) {
+    return status == 408 || status == 429 || status >= 500;
+  }
+}
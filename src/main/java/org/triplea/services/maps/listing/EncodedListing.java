@@ -0,0 +1,5 @@
+package org.triplea.services.maps.listing;
+
+/// One encoding of the serialized listing: the exact bytes to send and the strong ETag for them.
+/// Each encoding has its own tag because the bytes on the wire differ (RFC 9110, section 8.8.3).
+public record EncodedListing(byte[] body, String etag) {}
@@ -0,0 +1,84 @@
+package org.triplea.services.maps.listing;
+
+import com.google.common.base.Splitter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+
+/// The content codings the listing is pre-encoded in, declared in server preference order
+/// (smallest payload first). `token` is the value used in `Accept-Encoding` and
+/// `Content-Encoding`.
+@AllArgsConstructor
+public enum ListingEncoding {
+  BROTLI("br"),
+  GZIP("gzip"),
+  IDENTITY("identity");
+
+  final String token;
+
+  /// Picks the encoding to send for an `Accept-Encoding` header (RFC 9110, section 12.5.3) among
+  /// those `available`. The highest q-value wins, ties go to the server's preference order, and
+  /// `*` covers any coding the header does not name. Identity is acceptable unless explicitly
+  /// refused, but when the header does not rate it, it ranks below every accepted compression.
+  ///
+  /// A client that refuses every available coding still gets identity rather than a 406: the
+  /// listing is the one resource every game client needs, and an uncompressed body is always
+  /// decodable.
+  static ListingEncoding negotiate(String acceptEncoding, Set<ListingEncoding> available) {
+    if (acceptEncoding == null || acceptEncoding.isBlank()) {
+      return IDENTITY;
+    }
+    Map<String, Double> qualities = new HashMap<>();
+    for (String entry : Splitter.on(',').trimResults().omitEmptyStrings().split(acceptEncoding)) {
+      qualities.merge(codingOf(entry), qualityOf(entry), (existing, replacement) -> replacement);
+    }
+
+    ListingEncoding best = IDENTITY;
+    double bestQuality = 0;
+    for (ListingEncoding encoding : values()) {
+      if (!available.contains(encoding)) {
+        continue;
+      }
+      double quality = encoding.qualityIn(qualities);
+      if (quality > bestQuality) {
+        best = encoding;
+        bestQuality = quality;
+      }
+    }
+    return best;
+  }
+
+  private double qualityIn(Map<String, Double> qualities) {
+    Double named = qualities.get(token);
+    if (named != null) {
+      return named;
+    }
+    Double wildcard = qualities.get("*");
+    if (wildcard != null) {
+      return wildcard;
+    }
+    return this == IDENTITY ? Double.MIN_VALUE : 0;
+  }
+
+  private static String codingOf(String entry) {
+    int semicolon = entry.indexOf(';');
+    return (semicolon < 0 ? entry : entry.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+  }
+
+  /// The entry's `q` parameter, defaulting to 1. A malformed value counts as 0, so a coding the
+  /// client did not clearly accept is never chosen because of it.
+  private static double qualityOf(String entry) {
+    for (String param : Splitter.on(';').trimResults().split(entry)) {
+      if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+        try {
+          return Double.parseDouble(param.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+}
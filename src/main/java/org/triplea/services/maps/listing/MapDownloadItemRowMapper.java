@@ -0,0 +1,45 @@
+package org.triplea.services.maps.listing;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.http.client.lobby.maps.listing.MapTag;
+
+/// Maps one row of the listing query, a map with its tags aggregated into the parallel arrays
+/// `attribute_names` and `attribute_values` (both null when the map has no tags), to a
+/// [MapDownloadItem].
+class MapDownloadItemRowMapper implements RowMapper<MapDownloadItem> {
+
+  @Override
+  public MapDownloadItem map(ResultSet rs, StatementContext ctx) throws SQLException {
+    return MapDownloadItem.builder()
+        .mapName(rs.getString("map_name"))
+        .downloadUrl(rs.getString("download_url"))
+        .downloadSizeInBytes(rs.getLong("download_size_bytes"))
+        .previewImageUrl(rs.getString("preview_image_url"))
+        .description(rs.getString("description"))
+        .lastCommitDateEpochMilli(
+            rs.getObject("last_commit_date", OffsetDateTime.class).toInstant().toEpochMilli())
+        .mapTags(tags(rs.getArray("attribute_names"), rs.getArray("attribute_values")))
+        .build();
+  }
+
+  private static List<MapTag> tags(Array names, Array values) throws SQLException {
+    if (names == null) {
+      return new ArrayList<>();
+    }
+    String[] nameArray = (String[]) names.getArray();
+    String[] valueArray = (String[]) values.getArray();
+    List<MapTag> tags = new ArrayList<>(nameArray.length);
+    for (int i = 0; i < nameArray.length; i++) {
+      tags.add(MapTag.builder().name(nameArray[i]).value(valueArray[i]).build());
+    }
+    return tags;
+  }
+}
@@ -0,0 +1,119 @@
+package org.triplea.services.maps.listing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.http.client.lobby.maps.listing.MapTag;
+import org.triplea.services.maps.attributes.AttributeValueRow;
+import org.triplea.services.maps.attributes.AttributeWithValues;
+
+/// An attribute index over one listing snapshot: for every attribute value, a bitmap of the
+/// positions (in listing order) of the maps tagged with it. A filtered query is then a handful of
+/// bitmap ORs and ANDs instead of a SQL join, and matches page out in listing order for free.
+///
+/// Built once per snapshot and immutable afterwards, so queries need no locking.
+public class MapFacetIndex {
+
+  private final List<MapDownloadItem> maps;
+
+  /// attribute name -> value -> maps having it, both levels in catalog display order.
+  private final Map<String, Map<String, BitSet>> bitmaps;
+
+  private MapFacetIndex(List<MapDownloadItem> maps, Map<String, Map<String, BitSet>> bitmaps) {
+    this.maps = maps;
+    this.bitmaps = bitmaps;
+  }
+
+  /// Indexes `maps`. Facets are laid out from `catalog`, so values no map uses yet still show (with
+  /// a count of zero); a tag missing from the catalog is appended after the catalog entries.
+  static MapFacetIndex build(List<AttributeWithValues> catalog, List<MapDownloadItem> maps) {
+    Map<String, Map<String, BitSet>> bitmaps = new LinkedHashMap<>();
+    for (AttributeWithValues attribute : catalog) {
+      Map<String, BitSet> values =
+          bitmaps.computeIfAbsent(attribute.name(), name -> new LinkedHashMap<>());
+      for (AttributeValueRow value : attribute.values()) {
+        values.put(value.value(), new BitSet(maps.size()));
+      }
+    }
+    for (int position = 0; position < maps.size(); position++) {
+      for (MapTag tag : maps.get(position).getMapTags()) {
+        bitmaps
+            .computeIfAbsent(tag.getName(), name -> new LinkedHashMap<>())
+            .computeIfAbsent(tag.getValue(), value -> new BitSet(maps.size()))
+            .set(position);
+      }
+    }
+    return new MapFacetIndex(maps, bitmaps);
+  }
+
+  /// Returns one page of the maps matching `selections`, plus facet counts.
+  ///
+  /// A map matches when, for every selected attribute, it has one of the selected values (OR
+  /// within an attribute, AND across attributes). Facet counts are disjunctive: the count shown
+  /// for a value is how many maps would match if that value were added to its own attribute's
+  /// selection, i.e. it applies every selection except the one on the value's own attribute. That
+  /// keeps the alternatives to a selected value visible and their counts meaningful.
+  MapListingQueryResponse query(Map<String, Set<String>> selections, int offset, int limit) {
+    Map<String, BitSet> selectedByAttribute = new LinkedHashMap<>();
+    selections.forEach(
+        (attribute, values) -> {
+          Map<String, BitSet> attributeBitmaps = bitmaps.getOrDefault(attribute, Map.of());
+          BitSet union = new BitSet(maps.size());
+          for (String value : values) {
+            BitSet bitmap = attributeBitmaps.get(value);
+            if (bitmap != null) {
+              union.or(bitmap);
+            }
+          }
+          selectedByAttribute.put(attribute, union);
+        });
+
+    BitSet matches = intersectAllExcept(selectedByAttribute, null);
+
+    List<MapListingQueryResponse.Facet> facets = new ArrayList<>();
+    bitmaps.forEach(
+        (attribute, values) -> {
+          BitSet base = intersectAllExcept(selectedByAttribute, attribute);
+          Set<String> selected = selections.getOrDefault(attribute, Set.of());
+          List<MapListingQueryResponse.FacetValue> counts = new ArrayList<>();
+          values.forEach(
+              (value, bitmap) -> {
+                BitSet hits = (BitSet) base.clone();
+                hits.and(bitmap);
+                counts.add(
+                    new MapListingQueryResponse.FacetValue(
+                        value, hits.cardinality(), selected.contains(value)));
+              });
+          facets.add(new MapListingQueryResponse.Facet(attribute, counts));
+        });
+
+    List<MapDownloadItem> page = new ArrayList<>(Math.min(limit, maps.size()));
+    int skipped = 0;
+    for (int position = matches.nextSetBit(0);
+        position >= 0 && page.size() < limit;
+        position = matches.nextSetBit(position + 1)) {
+      if (skipped++ >= offset) {
+        page.add(maps.get(position));
+      }
+    }
+    return new MapListingQueryResponse(matches.cardinality(), offset, page, facets);
+  }
+
+  /// All maps, narrowed by every attribute selection other than `excludedAttribute`'s.
+  private BitSet intersectAllExcept(
+      Map<String, BitSet> selectedByAttribute, String excludedAttribute) {
+    BitSet result = new BitSet(maps.size());
+    result.set(0, maps.size());
+    selectedByAttribute.forEach(
+        (attribute, union) -> {
+          if (!attribute.equals(excludedAttribute)) {
+            result.and(union);
+          }
+        });
+    return result;
+  }
+}
@@ -0,0 +1,261 @@
+package org.triplea.services.maps.listing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jdbi.v3.core.Jdbi;
+import org.triplea.server.CacheInvalidationBus;
+
+/// Holds the public map listing in memory so that serving it is a pointer read rather than a
+/// database query per client.
+///
+/// The listing only changes when the indexer writes a map or a MapAdmin edits a map or the
+/// attribute catalog. Those write paths call [#invalidate], which refreshes the `map_listing`
+/// materialized view the listing is read from and bumps the generation; the next [#get] then
+/// rebuilds the snapshot once and every caller after it shares the new copy.
+///
+/// Rebuilds are single-flight: however many requests arrive while the snapshot is stale, one
+/// database read runs and the rest wait on its future. With `app.map-listing-max-staleness` set
+/// above zero, callers that find a stale snapshot are instead served it straight away while the
+/// rebuild runs in the background, for at most that long after the invalidation; past the bound,
+/// or on a cold start with no snapshot at all, they wait.
+///
+/// With `app.map-listing-snapshot-dir` set, every rebuilt snapshot is also saved to disk
+/// ([MapListingSnapshotStore]). If a rebuild fails, for instance because the database is down, the
+/// cache keeps serving the snapshot it holds or, with none in memory after a restart, the one on
+/// disk. It does so straight away: after a failed rebuild, reads are not held up by another attempt
+/// (and another connection timeout) for `app.map-listing-rebuild-retry-delay`, after which the
+/// retries run in the background while the old snapshot is served.
+///
+/// With several instances behind the load balancer, [#invalidate] also publishes
+/// [#INVALIDATION_TOPIC] on the [CacheInvalidationBus]. The other nodes then only bump their
+/// generation: the view they read is shared and has already been refreshed.
+@ApplicationScoped
+@Slf4j
+public class MapListingCache implements Supplier<MapListingSnapshot> {
+  public static final String INVALIDATION_TOPIC = "map_listing";
+
+  @Inject Jdbi jdbi;
+  @Inject ObjectMapper objectMapper;
+  @Inject CacheInvalidationBus invalidationBus;
+
+  @ConfigProperty(name = "app.map-listing-max-staleness", defaultValue = "0s")
+  Duration maxStaleness;
+
+  @ConfigProperty(name = "app.map-listing-snapshot-dir")
+  Optional<String> snapshotDir;
+
+  @ConfigProperty(name = "app.map-listing-rebuild-retry-delay", defaultValue = "10s")
+  Duration rebuildRetryDelay;
+
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicReference<MapListingSnapshot> snapshot = new AtomicReference<>();
+  private final AtomicReference<CompletableFuture<MapListingSnapshot>> inFlight =
+      new AtomicReference<>();
+
+  /// [System#nanoTime] of the first invalidation the current snapshot has not caught up with.
+  private volatile long staleSinceNanos;
+
+  /// Whether the last rebuild failed, and when; cleared by the next successful rebuild.
+  private volatile boolean rebuildFailing;
+
+  private volatile long rebuildFailedAtNanos;
+
+  private LongFunction<MapListingSnapshot> snapshotLoader;
+  private Runnable viewRefresher;
+  private Runnable changePublisher;
+  private Executor backgroundRebuilds;
+  private Optional<MapListingSnapshotStore> snapshotStore = Optional.empty();
+
+  MapListingCache() {}
+
+  @VisibleForTesting
+  MapListingCache(LongFunction<MapListingSnapshot> snapshotLoader) {
+    this(snapshotLoader, Duration.ZERO, Runnable::run, null);
+  }
+
+  @VisibleForTesting
+  MapListingCache(
+      LongFunction<MapListingSnapshot> snapshotLoader,
+      Duration maxStaleness,
+      Executor backgroundRebuilds,
+      MapListingSnapshotStore snapshotStore) {
+    this(snapshotLoader, maxStaleness, backgroundRebuilds, snapshotStore, Duration.ofSeconds(10));
+  }
+
+  @VisibleForTesting
+  MapListingCache(
+      LongFunction<MapListingSnapshot> snapshotLoader,
+      Duration maxStaleness,
+      Executor backgroundRebuilds,
+      MapListingSnapshotStore snapshotStore,
+      Duration rebuildRetryDelay) {
+    this.snapshotLoader = snapshotLoader;
+    this.maxStaleness = maxStaleness;
+    this.rebuildRetryDelay = rebuildRetryDelay;
+    this.backgroundRebuilds = backgroundRebuilds;
+    this.snapshotStore = Optional.ofNullable(snapshotStore);
+    this.viewRefresher = () -> {};
+    this.changePublisher = () -> {};
+  }
+
+  /// Also refreshes the `map_listing` view once, so the listing is correct from the first request
+  /// even if the previous process stopped between a write and its refresh. A database outage at
+  /// startup is logged rather than failing the bean, so the saved snapshot can still be served.
+  @PostConstruct
+  void init() {
+    snapshotLoader = MapsListingModule.build(jdbi, objectMapper);
+    snapshotStore = snapshotDir.map(dir -> new MapListingSnapshotStore(Path.of(dir), objectMapper));
+    viewRefresher = new MapListingDao(jdbi)::refreshListingView;
+    try {
+      viewRefresher.run();
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh the map listing view at startup", e);
+    }
+    changePublisher = () -> invalidationBus.publish(INVALIDATION_TOPIC);
+    invalidationBus.subscribe(INVALIDATION_TOPIC, this::markStale);
+    backgroundRebuilds =
+        Executors.newSingleThreadExecutor(
+            task -> {
+              Thread thread = new Thread(task, "map-listing-rebuild");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /// Returns the current snapshot. If a change was signalled since it was taken, either waits for
+  /// the (shared) rebuild or, within the staleness bound or while rebuilds are failing, returns the
+  /// stale snapshot and lets the rebuild run in the background.
+  @Override
+  public MapListingSnapshot get() {
+    MapListingSnapshot current = snapshot.get();
+    if (current != null && current.generation() == generation.get()) {
+      return current;
+    }
+    if (current != null && rebuildFailing) {
+      if (System.nanoTime() - rebuildFailedAtNanos >= rebuildRetryDelay.toNanos()) {
+        startRebuild(backgroundRebuilds);
+      }
+      return current;
+    }
+    if (current != null && System.nanoTime() - staleSinceNanos < maxStaleness.toNanos()) {
+      startRebuild(backgroundRebuilds);
+      return current;
+    }
+    try {
+      // This caller waits either way, so if it starts the rebuild it may as well run it itself.
+      return await(startRebuild(Runnable::run));
+    } catch (RuntimeException e) {
+      return lastKnownGood(current).orElseThrow(() -> e);
+    }
+  }
+
+  /// The current generation. It moves on every [#invalidate], so other in-memory views of map data
+  /// can cheaply tell whether they need to catch up.
+  public long generation() {
+    return generation.get();
+  }
+
+  /// Marks the cached listing as stale. Call after any write that can change what the public
+  /// listing returns.
+  ///
+  /// Refreshes the `map_listing` view first and only then moves the generation, so the rebuild
+  /// that follows cannot read the view from before the write. The other nodes are notified last,
+  /// for the same reason.
+  public void invalidate() {
+    viewRefresher.run();
+    markStale();
+    changePublisher.run();
+  }
+
+  private void markStale() {
+    long previous = generation.getAndIncrement();
+    MapListingSnapshot current = snapshot.get();
+    // Only the first invalidation after a fresh snapshot starts the staleness clock.
+    if (current == null || current.generation() == previous) {
+      staleSinceNanos = System.nanoTime();
+    }
+  }
+
+  /// Joins the rebuild already in flight, or starts one on `executor`, so that a burst of requests
+  /// arriving after an invalidation results in a single database read. A write that lands while
+  /// the rebuild runs bumps the generation again, so the (possibly stale) result is replaced on the
+  /// following read.
+  private CompletableFuture<MapListingSnapshot> startRebuild(Executor executor) {
+    CompletableFuture<MapListingSnapshot> rebuild = new CompletableFuture<>();
+    CompletableFuture<MapListingSnapshot> running = inFlight.compareAndExchange(null, rebuild);
+    if (running != null) {
+      return running;
+    }
+    executor.execute(() -> rebuild(rebuild));
+    return rebuild;
+  }
+
+  private void rebuild(CompletableFuture<MapListingSnapshot> rebuild) {
+    try {
+      long target = generation.get();
+      MapListingSnapshot rebuilt = snapshot.get();
+      // A rebuild that finished just before this one started may already have caught up.
+      if (rebuilt == null || rebuilt.generation() != target) {
+        rebuilt = snapshotLoader.apply(target);
+        snapshot.set(rebuilt);
+        log.info(
+            "Rebuilt map listing snapshot, generation {}, maps: {}", target, rebuilt.maps().size());
+        MapListingSnapshot saved = rebuilt;
+        snapshotStore.ifPresent(store -> store.save(saved));
+      }
+      rebuildFailing = false;
+      inFlight.set(null);
+      rebuild.complete(rebuilt);
+    } catch (RuntimeException e) {
+      log.warn("Failed to rebuild the map listing snapshot", e);
+      rebuildFailedAtNanos = System.nanoTime();
+      rebuildFailing = true;
+      inFlight.set(null);
+      rebuild.completeExceptionally(e);
+    }
+  }
+
+  /// The snapshot to serve after a failed rebuild: the stale one in memory, or else the one saved
+  /// on disk, which is then kept in memory until a rebuild succeeds.
+  private Optional<MapListingSnapshot> lastKnownGood(MapListingSnapshot current) {
+    if (current != null) {
+      return Optional.of(current);
+    }
+    Optional<MapListingSnapshot> saved = snapshotStore.flatMap(MapListingSnapshotStore::load);
+    saved.ifPresent(
+        fallback -> {
+          snapshot.compareAndSet(null, fallback);
+          log.warn(
+              "Serving the saved map listing, listing version {}, until a rebuild succeeds",
+              fallback.listingVersion());
+        });
+    return saved;
+  }
+
+  private static MapListingSnapshot await(CompletableFuture<MapListingSnapshot> rebuild) {
+    try {
+      return rebuild.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
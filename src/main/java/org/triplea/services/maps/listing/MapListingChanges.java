@@ -0,0 +1,18 @@
+package org.triplea.services.maps.listing;
+
+import java.util.List;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+
+/// The delta between a client's cached listing and the current one.
+///
+/// @param version the listing version this delta brings the client up to; send it as `since` on
+///     the next request
+/// @param reset true when `since` was not a version this server issued (e.g. the database was
+///     restored); the client must discard its cache and replace it with `changed`
+/// @param changed listed maps added or updated since `since`, to upsert by `downloadUrl`
+/// @param removed maps to drop from the client's cache
+public record MapListingChanges(
+    long version,
+    boolean reset,
+    List<MapDownloadItem> changed,
+    List<MapListingTombstone> removed) {}
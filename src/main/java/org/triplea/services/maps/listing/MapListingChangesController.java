@@ -0,0 +1,53 @@
+package org.triplea.services.maps.listing;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+import org.jdbi.v3.core.Jdbi;
+import org.triplea.http.client.ServerPaths;
+
+/// Serves the map listing as a delta: what changed since a listing version the client already
+/// holds. A client with a warm cache sends the version from its last full listing
+/// ([MapListingController#LISTING_VERSION_HEADER]) or last delta, and receives only the maps added
+/// or changed since, plus tombstones for maps that left the listing.
+///
+/// Versions come from `map_index.change_version`, stamped by database triggers on every write
+/// that can change a listing entry, so no write path has to remember to record its changes.
+@Path(ServerPaths.MAPS_LISTING_PATH + "/changes")
+@Produces(MediaType.APPLICATION_JSON)
+@ApplicationScoped
+public class MapListingChangesController {
+
+  @Inject Jdbi jdbi;
+
+  private MapListingDao mapListingDao;
+
+  @PostConstruct
+  void init() {
+    mapListingDao = new MapListingDao(jdbi);
+  }
+
+  @GET
+  public MapListingChanges fetchChanges(@QueryParam("since") @DefaultValue("0") long since) {
+    if (since < 0) {
+      throw new BadRequestException("'since' must not be negative");
+    }
+    // Read the version first; see MapsListingModule for why that order is safe.
+    long version = mapListingDao.fetchListingVersion();
+    boolean reset = since > version;
+    long from = reset ? 0 : since;
+    return new MapListingChanges(
+        version,
+        reset,
+        mapListingDao.fetchMapListingsChangedSince(from),
+        reset ? List.of() : mapListingDao.fetchRemovedSince(from));
+  }
+}
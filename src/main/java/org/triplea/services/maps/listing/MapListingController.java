@@ -1,36 +1,81 @@
 package org.triplea.services.maps.listing;
 
-import jakarta.annotation.PostConstruct;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
-import java.util.List;
-import java.util.function.Supplier;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import java.util.Date;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jdbi.v3.core.Jdbi;
 import org.triplea.http.client.ServerPaths;
-import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
-import org.triplea.http.client.lobby.maps.listing.MapListingResponse;
 
 @Path(ServerPaths.MAPS_LISTING_PATH)
 @Produces(MediaType.APPLICATION_JSON)
 @ApplicationScoped
 public class MapListingController {
 
-  @Inject Jdbi jdbi;
+  /// Clients may keep the listing but must revalidate it on every use; revalidation is cheap
+  /// because an unchanged listing is answered with an empty 304.
+  private static final CacheControl REVALIDATE = CacheControl.valueOf("no-cache");
 
-  private Supplier<List<MapDownloadItem>> downloadListingSupplier;
+  /// The listing version the body is at least as new as; a client passes it as `since` to
+  /// [MapListingChangesController] to fetch later changes only.
+  public static final String LISTING_VERSION_HEADER = "X-Map-Listing-Version";
 
-  @PostConstruct
-  void init() {
-    downloadListingSupplier = MapsListingModule.build(jdbi);
-  }
+  @Inject MapListingCache mapListingCache;
+  @Inject Jdbi jdbi;
+  @Inject ObjectMapper objectMapper;
 
-  /// Returns the full set of maps available for download.
+  @ConfigProperty(name = "app.map-listing-cache-enabled", defaultValue = "true")
+  boolean cacheEnabled;
+
+  /// Returns the full set of maps available for download (a `MapListingResponse`), served as the
+  /// pre-serialized, pre-compressed bytes of the in-memory snapshot in whichever encoding the
+  /// client's `Accept-Encoding` prefers. `If-None-Match` is checked against the chosen encoding's
+  /// ETag. `Last-Modified` is sent for information only and `If-Modified-Since` is ignored: the
+  /// timestamp has one-second precision and does not move on attribute catalog edits, so a
+  /// date-based 304 could hide a change.
+  ///
+  /// With the snapshot turned off, the body is instead streamed from the database on every
+  /// request, uncompressed and without validators.
   @GET
-  public MapListingResponse fetchAvailableMaps() {
-    return MapListingResponse.builder().maps(downloadListingSupplier.get()).build();
+  public Response fetchAvailableMaps(
+      @Context final Request request, @Context final HttpHeaders headers) {
+    if (!cacheEnabled) {
+      return Response.ok(new StreamingMapListing(new MapListingDao(jdbi), objectMapper))
+          .cacheControl(REVALIDATE)
+          .build();
+    }
+    MapListingSnapshot snapshot = mapListingCache.get();
+    ListingEncoding encoding =
+        ListingEncoding.negotiate(
+            headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING), snapshot.encodings().keySet());
+    EncodedListing encoded = snapshot.encodings().get(encoding);
+    EntityTag etag = new EntityTag(encoded.etag());
+    Date lastModified = Date.from(snapshot.lastModified());
+
+    Response.ResponseBuilder response = request.evaluatePreconditions(etag);
+    if (response == null) {
+      response = Response.ok(encoded.body());
+      if (encoding != ListingEncoding.IDENTITY) {
+        response.header(HttpHeaders.CONTENT_ENCODING, encoding.token);
+      }
+    }
+    return response
+        .tag(etag)
+        .lastModified(lastModified)
+        .cacheControl(REVALIDATE)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .header(LISTING_VERSION_HEADER, snapshot.listingVersion())
+        .build();
   }
 }
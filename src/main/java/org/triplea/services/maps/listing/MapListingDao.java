@@ -1,64 +1,113 @@
 package org.triplea.services.maps.listing;
 
-import java.util.LinkedHashMap;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import lombok.AllArgsConstructor;
 import org.jdbi.v3.core.Jdbi;
-import org.jdbi.v3.core.mapper.reflect.BeanMapper;
 import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
-import org.triplea.http.client.lobby.maps.listing.MapTag;
 
+/// Reads the public map listing from the `map_listing` materialized view (migration `V2.00.08`),
+/// which [MapListingCache#invalidate] refreshes after every write that can change the listing.
 @AllArgsConstructor
 public class MapListingDao {
+  private static final int FETCH_SIZE = 200;
+
   private final Jdbi jdbi;
 
   List<MapDownloadItem> fetchMapListings() {
+    return fetchMapListingsChangedSince(0);
+  }
+
+  /// The listed maps whose entry changed after listing version `since` (all listed maps for 0).
+  List<MapDownloadItem> fetchMapListingsChangedSince(long since) {
+    List<MapDownloadItem> maps = new ArrayList<>();
+    forEachMapListing(since, maps::add);
+    return maps;
+  }
+
+  /// Hands the listed maps changed after listing version `since` to `consumer` one at a time, in
+  /// listing order, as they come off a server-side cursor, so only one map is held in memory at a
+  /// time. Reads the `map_listing` view, where each row is one complete map with its tags already
+  /// aggregated, so this is a single indexed scan with no joins.
+  void forEachMapListing(long since, Consumer<MapDownloadItem> consumer) {
+    // Postgres only streams with a cursor (fetch size) inside a transaction.
+    jdbi.useTransaction(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                    select
+                      map_name,
+                      download_url,
+                      download_size_bytes,
+                      preview_image_url,
+                      description,
+                      last_commit_date,
+                      attribute_names,
+                      attribute_values
+                    from map_listing
+                    where listed and change_version > :since
+                    order by last_commit_date desc, map_name, id
+                    """)
+                .bind("since", since)
+                .setFetchSize(FETCH_SIZE)
+                .map(new MapDownloadItemRowMapper())
+                .useStream(maps -> maps.forEach(consumer)));
+  }
+
+  /// The most recent `date_updated` across all maps, including those that are not publicly listed
+  /// (a map dropping out of the listing is itself a change to it). Edits to the attribute catalog
+  /// alone do not move this timestamp, so it is served as information only and never used to
+  /// answer a conditional request; the listing's ETag is the validator.
+  Optional<Instant> fetchLastModified() {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery("select max(date_updated) from map_listing")
+                .mapTo(Instant.class)
+                .findOne());
+  }
+
+  /// The current listing version: the highest `change_version` (see the `V2.00.07` migration) in
+  /// the last refresh of the `map_listing` view, or 0 if there are no maps. Read from the view,
+  /// not `map_index`, so the version never runs ahead of the rows it vouches for.
+  long fetchListingVersion() {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery("select coalesce(max(change_version), 0) from map_listing")
+                .mapTo(Long.class)
+                .one());
+  }
+
+  /// Maps that changed after listing version `since` and are not listed now, with the reason.
+  List<MapListingTombstone> fetchRemovedSince(long since) {
     return jdbi.withHandle(
         handle ->
             handle
                 .createQuery(
                     """
-                        select
-                          m.id,
-                          m.map_name,
-                          m.download_url,
-                          m.download_size_bytes,
-                          m.preview_image_url,
-                          m.description,
-                          m.last_commit_date,
-                          v.value attribute_value,
-                          a.name  attribute_name
-                        from map_index m
-                        left join map_index_attribute mia on mia.map_index_id = m.id
-                        left join map_attribute_value v on v.id = mia.map_attribute_value_id
-                        left join map_attribute a on a.id = mia.map_attribute_id
-                        where m.enabled and m.admin_enabled
-                        order by m.last_commit_date desc, m.map_name, a.display_order, v.display_order
-                        """)
-                .registerRowMapper(BeanMapper.factory(MapListingRecord.class))
-                .registerRowMapper(BeanMapper.factory(MapTag.class))
-                .reduceRows(
-                    new LinkedHashMap<Long, MapListingRecord>(),
-                    (accumulator, rowView) -> {
-                      var listing =
-                          accumulator.computeIfAbsent(
-                              rowView.getColumn("id", Long.class),
-                              id -> rowView.getRow(MapListingRecord.class));
+                    select map_name, download_url, removed_reason
+                    from map_listing
+                    where not listed and change_version > :since
+                    order by change_version
+                    """)
+                .bind("since", since)
+                .map(
+                    (rs, ctx) ->
+                        new MapListingTombstone(
+                            rs.getString("map_name"),
+                            rs.getString("download_url"),
+                            MapListingTombstone.Reason.valueOf(rs.getString("removed_reason"))))
+                .list());
+  }
 
-                      if (rowView.getColumn("attribute_value", String.class) != null) {
-                        listing
-                            .getTags()
-                            .add(
-                                MapTag.builder()
-                                    .name(rowView.getColumn("attribute_name", String.class))
-                                    .value(rowView.getColumn("attribute_value", String.class))
-                                    .build());
-                      }
-                      return accumulator;
-                    })
-                .values()
-                .stream()
-                .map(MapListingRecord::toMapDownloadItem)
-                .toList());
+  /// Brings the `map_listing` view up to date with `map_index` and the attribute tables. Runs
+  /// concurrently, so listing reads are never blocked while it does.
+  void refreshListingView() {
+    jdbi.useHandle(handle -> handle.execute("refresh materialized view concurrently map_listing"));
   }
 }
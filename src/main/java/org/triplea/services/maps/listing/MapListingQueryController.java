@@ -0,0 +1,61 @@
+package org.triplea.services.maps.listing;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.triplea.http.client.ServerPaths;
+
+/// A paged, filtered view of the map listing for clients that should not download the whole
+/// catalog. Filters select attribute values (`?filter=era:ancient&filter=difficulty:easy`); the
+/// response carries one page of matching maps and per-value facet counts. Queries run against the
+/// [MapFacetIndex] of the current in-memory snapshot, so they never touch the database.
+@Path(ServerPaths.MAPS_LISTING_PATH + "/query")
+@Produces(MediaType.APPLICATION_JSON)
+@ApplicationScoped
+public class MapListingQueryController {
+
+  static final int MAX_LIMIT = 200;
+
+  @Inject MapListingCache mapListingCache;
+
+  /// @param filters `attribute:value` pairs; repeating an attribute ORs its values, different
+  ///     attributes are ANDed
+  @GET
+  public MapListingQueryResponse query(
+      @QueryParam("filter") final List<String> filters,
+      @QueryParam("offset") @DefaultValue("0") final int offset,
+      @QueryParam("limit") @DefaultValue("50") final int limit) {
+    if (offset < 0) {
+      throw new BadRequestException("'offset' must not be negative");
+    }
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new BadRequestException("'limit' must be between 1 and " + MAX_LIMIT);
+    }
+    return mapListingCache.get().facets().query(parseFilters(filters), offset, limit);
+  }
+
+  static Map<String, Set<String>> parseFilters(List<String> filters) {
+    Map<String, Set<String>> selections = new LinkedHashMap<>();
+    for (String filter : filters) {
+      int separator = filter.indexOf(':');
+      if (separator <= 0 || separator == filter.length() - 1) {
+        throw new BadRequestException("Filter must be 'attribute:value', got: " + filter);
+      }
+      selections
+          .computeIfAbsent(filter.substring(0, separator), attribute -> new LinkedHashSet<>())
+          .add(filter.substring(separator + 1));
+    }
+    return selections;
+  }
+}
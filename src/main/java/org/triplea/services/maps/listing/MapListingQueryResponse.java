@@ -0,0 +1,19 @@
+package org.triplea.services.maps.listing;
+
+import java.util.List;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+
+/// One page of a filtered map listing query.
+///
+/// @param total how many maps match the filters, across all pages
+/// @param offset the position of the first map of this page within the matches
+/// @param maps the matching maps of this page, in listing order
+/// @param facets for every attribute in the catalog, the count of maps per value (see
+///     [MapFacetIndex#query] for how counts treat the attribute's own selection)
+public record MapListingQueryResponse(
+    int total, int offset, List<MapDownloadItem> maps, List<Facet> facets) {
+
+  public record Facet(String attribute, List<FacetValue> values) {}
+
+  public record FacetValue(String value, int count, boolean selected) {}
+}
@@ -0,0 +1,28 @@
+package org.triplea.services.maps.listing;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+
+/// An immutable copy of the public map listing as read at one point in time, together with its
+/// serialized forms so that requests neither re-encode nor re-compress it.
+///
+/// `generation` is the [MapListingCache] generation the snapshot was built for; a snapshot is
+/// current as long as no write path has signalled a change since. `listingVersion` is the database
+/// listing version (see [MapListingChanges]) the maps are at least as new as. `encodings` holds the
+/// `MapListingResponse` body in each available [ListingEncoding] (identity is always present),
+/// `lastModified` is the latest `map_index.date_updated` (truncated to seconds, the precision of
+/// the HTTP date format), and `facets` indexes `maps` by attribute for filtered queries.
+public record MapListingSnapshot(
+    long generation,
+    long listingVersion,
+    List<MapDownloadItem> maps,
+    Map<ListingEncoding, EncodedListing> encodings,
+    Instant lastModified,
+    MapFacetIndex facets) {
+
+  public EncodedListing identity() {
+    return encodings.get(ListingEncoding.IDENTITY);
+  }
+}
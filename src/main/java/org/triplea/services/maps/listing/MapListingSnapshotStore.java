@@ -0,0 +1,151 @@
+package org.triplea.services.maps.listing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.http.client.lobby.maps.listing.MapTag;
+
+/// Keeps the most recent listing snapshot in a file in a local directory, so that the listing can
+/// still be served while the database is unreachable, including right after a restart.
+///
+/// The file holds the response body in every [ListingEncoding] with its ETag, plus the listing
+/// version and Last-Modified time. It is written to a temporary file that is then atomically moved
+/// over the previous one, so a crash mid-write leaves the last complete snapshot in place.
+@AllArgsConstructor
+@Slf4j
+class MapListingSnapshotStore {
+  static final String FILE_NAME = "map-listing.snapshot";
+
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path directory;
+  private final ObjectMapper objectMapper;
+
+  /// Replaces the stored snapshot with `snapshot`. Failures are logged, not thrown: the listing
+  /// being served is unaffected, only the fallback copy is not updated.
+  void save(MapListingSnapshot snapshot) {
+    try {
+      Files.createDirectories(directory);
+      Path temp = Files.createTempFile(directory, FILE_NAME, ".tmp");
+      try {
+        try (var out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+          out.writeInt(FORMAT_VERSION);
+          out.writeLong(snapshot.listingVersion());
+          out.writeLong(snapshot.lastModified().toEpochMilli());
+          out.writeInt(snapshot.encodings().size());
+          for (var entry : snapshot.encodings().entrySet()) {
+            out.writeUTF(entry.getKey().name());
+            out.writeUTF(entry.getValue().etag());
+            out.writeInt(entry.getValue().body().length);
+            out.write(entry.getValue().body());
+          }
+        }
+        Files.move(
+            temp,
+            directory.resolve(FILE_NAME),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      log.warn("Failed to save the map listing snapshot to {}", directory, e);
+    }
+  }
+
+  /// The stored snapshot, or empty if there is none or it cannot be read.
+  ///
+  /// The result has generation -1, so the cache treats it as stale and keeps trying to rebuild.
+  /// Its maps are read back from the identity body; its facet index is built from their tags
+  /// alone, since the attribute catalog lives in the database.
+  Optional<MapListingSnapshot> load() {
+    Path file = directory.resolve(FILE_NAME);
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      int formatVersion = in.readInt();
+      if (formatVersion != FORMAT_VERSION) {
+        log.warn("Ignoring map listing snapshot {} in unknown format {}", file, formatVersion);
+        return Optional.empty();
+      }
+      long listingVersion = in.readLong();
+      Instant lastModified = Instant.ofEpochMilli(in.readLong());
+      Map<ListingEncoding, EncodedListing> encodings = new EnumMap<>(ListingEncoding.class);
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        ListingEncoding encoding = ListingEncoding.valueOf(in.readUTF());
+        String etag = in.readUTF();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        encodings.put(encoding, new EncodedListing(body, etag));
+      }
+      EncodedListing identity = encodings.get(ListingEncoding.IDENTITY);
+      if (identity == null) {
+        log.warn("Ignoring map listing snapshot {} without an identity body", file);
+        return Optional.empty();
+      }
+      List<MapDownloadItem> maps = readMaps(identity.body());
+      return Optional.of(
+          new MapListingSnapshot(
+              -1,
+              listingVersion,
+              maps,
+              encodings,
+              lastModified,
+              MapFacetIndex.build(List.of(), maps)));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to read the map listing snapshot {}", file, e);
+      return Optional.empty();
+    }
+  }
+
+  /// Parses a `MapListingResponse` body back into its maps.
+  private List<MapDownloadItem> readMaps(byte[] json) throws IOException {
+    List<MapDownloadItem> maps = new ArrayList<>();
+    for (JsonNode map : objectMapper.readTree(json).path("maps")) {
+      List<MapTag> tags = new ArrayList<>();
+      for (JsonNode tag : map.path("mapTags")) {
+        tags.add(MapTag.builder().name(text(tag, "name")).value(text(tag, "value")).build());
+      }
+      maps.add(
+          MapDownloadItem.builder()
+              .mapName(text(map, "mapName"))
+              .downloadUrl(text(map, "downloadUrl"))
+              .previewImageUrl(text(map, "previewImageUrl"))
+              .description(text(map, "description"))
+              .lastCommitDateEpochMilli(number(map, "lastCommitDateEpochMilli"))
+              .downloadSizeInBytes(number(map, "downloadSizeInBytes"))
+              .mapTags(List.copyOf(tags))
+              .build());
+    }
+    return List.copyOf(maps);
+  }
+
+  private static String text(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+
+  private static Long number(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asLong();
+  }
+}
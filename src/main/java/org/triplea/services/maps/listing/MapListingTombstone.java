@@ -0,0 +1,15 @@
+package org.triplea.services.maps.listing;
+
+/// A map that was in the listing a client may hold but is no longer publicly listed. Clients key
+/// their cached entries on `downloadUrl`, which is unique per map repository.
+public record MapListingTombstone(String mapName, String downloadUrl, Reason reason) {
+
+  public enum Reason {
+    /// The repository vanished from the maps organization (see `MapIndexDao.disableMapsNotIn`).
+    DELETED,
+    /// The indexer could not read the map; it returns once the repository indexes cleanly.
+    DISABLED,
+    /// A MapAdmin has not approved, or has withdrawn approval for, the map.
+    ADMIN_DISABLED
+  }
+}
@@ -1,23 +1,125 @@
 package org.triplea.services.maps.listing;
 
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.function.Supplier;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.jdbi.v3.core.Jdbi;
 import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.http.client.lobby.maps.listing.MapListingResponse;
+import org.triplea.services.maps.attributes.MapAttributeDao;
 
+/// Reads the full set of maps available to download and packages it as a [MapListingSnapshot]:
+/// the maps, their serialized response body in every [ListingEncoding], the HTTP validators for
+/// each, and the attribute index used by filtered queries.
+///
+/// Compression runs here, once per listing change, at the highest settings each codec offers; a
+/// snapshot is built rarely and served many times, so the slower encode pays for itself.
 @AllArgsConstructor
-public class MapsListingModule implements Supplier<List<MapDownloadItem>> {
+@Slf4j
+public class MapsListingModule implements LongFunction<MapListingSnapshot> {
+
+  private static final Encoder.Parameters BROTLI_PARAMETERS =
+      new Encoder.Parameters().setQuality(11).setMode(Encoder.Mode.TEXT);
+
+  /// Whether the brotli native library loaded on this platform; checked once, as it cannot change.
+  private static final boolean BROTLI_AVAILABLE;
+
+  static {
+    BROTLI_AVAILABLE = Brotli4jLoader.isAvailable();
+    if (!BROTLI_AVAILABLE) {
+      log.warn(
+          "Brotli unavailable, serving map listing without it",
+          Brotli4jLoader.getUnavailabilityCause());
+    }
+  }
 
   private final MapListingDao mapListingDao;
+  private final MapAttributeDao mapAttributeDao;
+  private final ObjectMapper objectMapper;
 
-  public static MapsListingModule build(final Jdbi jdbi) {
-    return new MapsListingModule(new MapListingDao(jdbi));
+  public static MapsListingModule build(final Jdbi jdbi, final ObjectMapper objectMapper) {
+    return new MapsListingModule(new MapListingDao(jdbi), new MapAttributeDao(jdbi), objectMapper);
   }
 
-  /// Returns data for the full set of maps available to download.
   @Override
-  public List<MapDownloadItem> get() {
-    return mapListingDao.fetchMapListings();
+  public MapListingSnapshot apply(long generation) {
+    // Read the version before the maps: anything committed in between is then included in the
+    // maps and re-sent by the next delta, which is harmless, rather than silently skipped.
+    long listingVersion = mapListingDao.fetchListingVersion();
+    List<MapDownloadItem> maps = List.copyOf(mapListingDao.fetchMapListings());
+    Instant lastModified =
+        mapListingDao.fetchLastModified().orElse(Instant.EPOCH).truncatedTo(ChronoUnit.SECONDS);
+    MapFacetIndex facets = MapFacetIndex.build(mapAttributeDao.listAttributes(), maps);
+    return new MapListingSnapshot(
+        generation, listingVersion, maps, encode(serialize(maps)), lastModified, facets);
+  }
+
+  private byte[] serialize(List<MapDownloadItem> maps) {
+    try {
+      return objectMapper.writeValueAsBytes(MapListingResponse.builder().maps(maps).build());
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException("Failed to serialize map listing", e);
+    }
+  }
+
+  /// Builds every encoding of `json`. Compressed variants share the identity tag with the coding
+  /// appended, so a tag identifies both the listing content and the encoding it was sent in.
+  /// Brotli is skipped when its native library is not available on this platform.
+  private static Map<ListingEncoding, EncodedListing> encode(byte[] json) {
+    String etag = etag(json);
+    Map<ListingEncoding, EncodedListing> encodings = new EnumMap<>(ListingEncoding.class);
+    encodings.put(ListingEncoding.IDENTITY, new EncodedListing(json, etag));
+    encodings.put(ListingEncoding.GZIP, new EncodedListing(gzip(json), etag + "-gzip"));
+    if (BROTLI_AVAILABLE) {
+      encodings.put(ListingEncoding.BROTLI, new EncodedListing(brotli(json), etag + "-br"));
+    }
+    return encodings;
+  }
+
+  /// A strong entity tag value: the unpadded base64url SHA-256 of the exact response bytes, so
+  /// two snapshots share a tag only if they are byte-for-byte identical.
+  static String etag(byte[] body) {
+    return BaseEncoding.base64Url()
+        .omitPadding()
+        .encode(Hashing.sha256().hashBytes(body).asBytes());
+  }
+
+  static byte[] gzip(byte[] data) {
+    var out = new ByteArrayOutputStream(data.length / 4);
+    try (var gzip =
+        new GZIPOutputStream(out) {
+          {
+            def.setLevel(Deflater.BEST_COMPRESSION);
+          }
+        }) {
+      gzip.write(data);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  static byte[] brotli(byte[] data) {
+    try {
+      return Encoder.compress(data, BROTLI_PARAMETERS);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to brotli-compress map listing", e);
+    }
   }
 }
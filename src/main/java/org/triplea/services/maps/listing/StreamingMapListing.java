@@ -0,0 +1,44 @@
+package org.triplea.services.maps.listing;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import lombok.AllArgsConstructor;
+
+/// Writes a `MapListingResponse` body straight from the database cursor to the response stream:
+/// each map is serialized as soon as its rows have been read, so neither the list of maps nor the
+/// encoded body is ever held in memory as a whole. Used when the in-memory listing snapshot is
+/// turned off (`app.map-listing-cache-enabled=false`).
+@AllArgsConstructor
+class StreamingMapListing implements StreamingOutput {
+
+  private final MapListingDao mapListingDao;
+  private final ObjectMapper objectMapper;
+
+  @Override
+  public void write(OutputStream output) throws IOException {
+    try (JsonGenerator generator =
+        objectMapper.createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("maps");
+      try {
+        mapListingDao.forEachMapListing(
+            0,
+            map -> {
+              try {
+                generator.writeObject(map);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package org.triplea.services.maps.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/// An in-memory inverted index over map names and descriptions, updated one document at a time.
+///
+/// Each term maps to the documents containing it with a weight: name occurrences count
+/// [#NAME_WEIGHT] times as much as description ones, and repeated description occurrences add
+/// logarithmically. A query term matches index terms three ways, each discounted further:
+///
+/// - exactly;
+/// - as a prefix (found with a range scan of the sorted term dictionary), for search-as-you-type;
+/// - by trigram similarity, for typos: index terms sharing enough padded trigrams with the query
+///   term (Jaccard similarity of at least [#MIN_SIMILARITY]).
+///
+/// A document must match every query term; its score sums, per query term, the best match
+/// quality times the term's weight in the document times the term's inverse document frequency.
+///
+/// Not thread-safe; [MapSearchIndex] guards it with a read/write lock.
+class InvertedIndex {
+
+  static final double NAME_WEIGHT = 3;
+  static final double PREFIX_MATCH = 0.8;
+  static final double FUZZY_MATCH = 0.6;
+  static final double MIN_SIMILARITY = 0.4;
+  /// Fuzzy matching shorter terms mostly yields noise ("war" ~ "wars" ~ "star").
+  static final int MIN_FUZZY_LENGTH = 4;
+
+  private final Map<Long, MapSearchDocument> documents = new HashMap<>();
+  private final Map<Long, Set<String>> termsByDocument = new HashMap<>();
+  private final NavigableMap<String, Map<Long, Double>> postings = new TreeMap<>();
+  private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+
+  int size() {
+    return documents.size();
+  }
+
+  /// Adds `document`, replacing any earlier version of it.
+  void put(MapSearchDocument document) {
+    remove(document.id());
+    Map<String, Double> weights = new HashMap<>();
+    for (String term : SearchText.indexTerms(document.mapName())) {
+      weights.merge(term, NAME_WEIGHT, Double::sum);
+    }
+    Map<String, Integer> descriptionCounts = new HashMap<>();
+    for (String term : SearchText.indexTerms(document.description())) {
+      descriptionCounts.merge(term, 1, Integer::sum);
+    }
+    descriptionCounts.forEach(
+        (term, count) -> weights.merge(term, 1 + Math.log(count), Double::sum));
+
+    documents.put(document.id(), document);
+    termsByDocument.put(document.id(), Set.copyOf(weights.keySet()));
+    weights.forEach(
+        (term, weight) -> {
+          Map<Long, Double> posting = postings.get(term);
+          if (posting == null) {
+            posting = new HashMap<>();
+            postings.put(term, posting);
+            for (String trigram : SearchText.trigrams(term)) {
+              termsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(term);
+            }
+          }
+          posting.put(document.id(), weight);
+        });
+  }
+
+  void remove(long id) {
+    if (documents.remove(id) == null) {
+      return;
+    }
+    for (String term : termsByDocument.remove(id)) {
+      Map<Long, Double> posting = postings.get(term);
+      posting.remove(id);
+      if (posting.isEmpty()) {
+        postings.remove(term);
+        for (String trigram : SearchText.trigrams(term)) {
+          Set<String> terms = termsByTrigram.get(trigram);
+          terms.remove(term);
+          if (terms.isEmpty()) {
+            termsByTrigram.remove(trigram);
+          }
+        }
+      }
+    }
+  }
+
+  /// The best `limit` matches for `query`, best first (ties by map name), restricted to listed
+  /// maps when `listedOnly`.
+  List<MapSearchHit> search(String query, int limit, boolean listedOnly) {
+    List<String> queryTerms = SearchText.queryTerms(query);
+    if (queryTerms.isEmpty() || documents.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, Double> scores = null;
+    for (String queryTerm : queryTerms) {
+      Map<Long, Double> termScores = new HashMap<>();
+      matchingTerms(queryTerm)
+          .forEach(
+              (term, quality) -> {
+                Map<Long, Double> posting = postings.get(term);
+                double idf = Math.log(1 + (double) documents.size() / posting.size());
+                posting.forEach(
+                    (id, weight) -> termScores.merge(id, quality * weight * idf, Math::max));
+              });
+      if (scores == null) {
+        scores = termScores;
+      } else {
+        scores.keySet().retainAll(termScores.keySet());
+        scores.replaceAll((id, score) -> score + termScores.get(id));
+      }
+      if (scores.isEmpty()) {
+        return List.of();
+      }
+    }
+
+    List<MapSearchHit> hits = new ArrayList<>();
+    scores.forEach(
+        (id, score) -> {
+          MapSearchDocument document = documents.get(id);
+          if (!listedOnly || document.listed()) {
+            hits.add(new MapSearchHit(id, document.mapName(), document.downloadUrl(), score));
+          }
+        });
+    hits.sort(
+        Comparator.comparingDouble(MapSearchHit::score)
+            .reversed()
+            .thenComparing(MapSearchHit::mapName, String.CASE_INSENSITIVE_ORDER));
+    return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+  }
+
+  /// Index terms matching `queryTerm`, each with its match quality (1 for exact).
+  private Map<String, Double> matchingTerms(String queryTerm) {
+    Map<String, Double> matches = new HashMap<>();
+    for (String term :
+        postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).keySet()) {
+      matches.put(term, term.equals(queryTerm) ? 1 : PREFIX_MATCH);
+    }
+    if (queryTerm.length() >= MIN_FUZZY_LENGTH) {
+      List<String> queryTrigrams = SearchText.trigrams(queryTerm);
+      Map<String, Integer> shared = new HashMap<>();
+      for (String trigram : queryTrigrams) {
+        for (String term : termsByTrigram.getOrDefault(trigram, Set.of())) {
+          shared.merge(term, 1, Integer::sum);
+        }
+      }
+      shared.forEach(
+          (term, count) -> {
+            // Jaccard similarity of the two trigram sets.
+            int union = queryTrigrams.size() + SearchText.trigrams(term).size() - count;
+            double similarity = (double) count / union;
+            if (similarity >= MIN_SIMILARITY) {
+              matches.merge(term, FUZZY_MATCH * similarity, Math::max);
+            }
+          });
+    }
+    return matches;
+  }
+}
@@ -0,0 +1,53 @@
+package org.triplea.services.maps.search;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.triplea.http.client.ServerPaths;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.http.client.lobby.maps.listing.MapListingResponse;
+import org.triplea.services.maps.listing.MapListingCache;
+
+/// Public search over the map listing: `?q=` matched against map names and descriptions, with
+/// prefix and typo tolerance (see [InvertedIndex]). Returns the matching listed maps, best match
+/// first, in the same shape as the full listing.
+@Path(ServerPaths.MAPS_LISTING_PATH + "/search")
+@Produces(MediaType.APPLICATION_JSON)
+@ApplicationScoped
+public class MapSearchController {
+
+  static final int MAX_LIMIT = 100;
+
+  @Inject MapSearchIndex mapSearchIndex;
+  @Inject MapListingCache mapListingCache;
+
+  @GET
+  public MapListingResponse search(
+      @QueryParam("q") @DefaultValue("") final String query,
+      @QueryParam("limit") @DefaultValue("20") final int limit) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new BadRequestException("'limit' must be between 1 and " + MAX_LIMIT);
+    }
+    Map<String, MapDownloadItem> listedByUrl =
+        mapListingCache.get().maps().stream()
+            .collect(Collectors.toMap(MapDownloadItem::getDownloadUrl, Function.identity()));
+    // A hit the snapshot does not (yet) list is dropped; the two converge on the next rebuild.
+    return MapListingResponse.builder()
+        .maps(
+            mapSearchIndex.search(query, limit, true).stream()
+                .map(hit -> listedByUrl.get(hit.downloadUrl()))
+                .filter(Objects::nonNull)
+                .toList())
+        .build();
+  }
+}
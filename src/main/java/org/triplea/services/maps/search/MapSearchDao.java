@@ -0,0 +1,43 @@
+package org.triplea.services.maps.search;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.jdbi.v3.core.Jdbi;
+
+@AllArgsConstructor
+class MapSearchDao {
+  private final Jdbi jdbi;
+
+  /// Every map whose row changed after listing version `since`, oldest change first (all maps for
+  /// 0). Relies on the `change_version` stamping from the `V2.00.07` migration, which covers name,
+  /// description and both enabled flags.
+  List<MapSearchDocument> fetchChangedSince(long since) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    """
+                    select
+                      id,
+                      map_name,
+                      description,
+                      download_url,
+                      enabled and admin_enabled listed,
+                      change_version
+                    from map_index
+                    where change_version > :since
+                    order by change_version
+                    """)
+                .bind("since", since)
+                .map(
+                    (rs, ctx) ->
+                        new MapSearchDocument(
+                            rs.getLong("id"),
+                            rs.getString("map_name"),
+                            rs.getString("description"),
+                            rs.getString("download_url"),
+                            rs.getBoolean("listed"),
+                            rs.getLong("change_version")))
+                .list());
+  }
+}
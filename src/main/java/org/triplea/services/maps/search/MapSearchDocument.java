@@ -0,0 +1,11 @@
+package org.triplea.services.maps.search;
+
+/// The searchable fields of one `map_index` row. `listed` is true when the map is in the public
+/// listing (indexer-enabled and admin-approved); `changeVersion` is the row's listing version.
+record MapSearchDocument(
+    long id,
+    String mapName,
+    String description,
+    String downloadUrl,
+    boolean listed,
+    long changeVersion) {}
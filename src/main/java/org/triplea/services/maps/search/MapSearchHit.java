@@ -0,0 +1,4 @@
+package org.triplea.services.maps.search;
+
+/// One ranked search result; higher `score` is a better match.
+public record MapSearchHit(long id, String mapName, String downloadUrl, double score) {}
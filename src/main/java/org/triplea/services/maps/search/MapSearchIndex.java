@@ -0,0 +1,92 @@
+package org.triplea.services.maps.search;
+
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.Jdbi;
+import org.triplea.services.maps.listing.MapListingCache;
+
+/// Full-text search over map names and descriptions, served from an [InvertedIndex] held in
+/// memory so that search-as-you-type never queries the database per keystroke.
+///
+/// The index is kept current incrementally. Every write to map data invalidates the
+/// [MapListingCache]; when a search sees that the cache generation has moved, it first applies
+/// the `map_index` rows whose `change_version` is newer than the last one it indexed. Usually
+/// that is the handful of maps the indexer just upserted or a MapAdmin just edited.
+@ApplicationScoped
+@Slf4j
+public class MapSearchIndex {
+
+  @Inject Jdbi jdbi;
+  @Inject MapListingCache mapListingCache;
+
+  private final InvertedIndex index = new InvertedIndex();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private LongSupplier generation;
+  private LongFunction<List<MapSearchDocument>> changesSince;
+  /// Written under the write lock but read without it by [#search], to skip the lock when the
+  /// index is already current.
+  private volatile long syncedGeneration = -1;
+  private long syncedVersion;
+
+  MapSearchIndex() {}
+
+  @VisibleForTesting
+  MapSearchIndex(LongSupplier generation, LongFunction<List<MapSearchDocument>> changesSince) {
+    this.generation = generation;
+    this.changesSince = changesSince;
+  }
+
+  @PostConstruct
+  void init() {
+    generation = mapListingCache::generation;
+    changesSince = new MapSearchDao(jdbi)::fetchChangedSince;
+  }
+
+  /// Up to `limit` maps matching `query`, best first. With `listedOnly`, only maps in the public
+  /// listing; otherwise every indexed map, including disabled ones (for the status page).
+  public List<MapSearchHit> search(String query, int limit, boolean listedOnly) {
+    if (generation.getAsLong() != syncedGeneration) {
+      sync();
+    }
+    lock.readLock().lock();
+    try {
+      return index.search(query, limit, listedOnly);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void sync() {
+    lock.writeLock().lock();
+    try {
+      // Read the generation before the rows: a write landing in between moves the generation
+      // again, so the next search syncs once more rather than missing it.
+      long target = generation.getAsLong();
+      if (target == syncedGeneration) {
+        return;
+      }
+      List<MapSearchDocument> changed = changesSince.apply(syncedVersion);
+      for (MapSearchDocument document : changed) {
+        index.put(document);
+        syncedVersion = Math.max(syncedVersion, document.changeVersion());
+      }
+      syncedGeneration = target;
+      log.debug(
+          "Synced map search index to version {}, {} changed, {} total",
+          syncedVersion,
+          changed.size(),
+          index.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.triplea.services.maps.search;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/// Turns map names, descriptions and queries into search terms: HTML tags and entities removed,
+/// accents folded ("É" -> "e"), lower-cased, and split on anything that is not a letter or digit.
+final class SearchText {
+
+  private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+  private static final Pattern HTML_ENTITY = Pattern.compile("&(#\\d+|#x\\p{XDigit}+|\\w+);");
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private SearchText() {}
+
+  /// Terms to index. Single characters are dropped: they match almost everything and carry no
+  /// meaning in map names or descriptions.
+  static List<String> indexTerms(String text) {
+    return split(text).filter(term -> term.length() > 1).toList();
+  }
+
+  /// Terms of a search query. Single characters are kept so that search-as-you-type can prefix
+  /// match from the first keystroke.
+  static List<String> queryTerms(String query) {
+    return split(query).toList();
+  }
+
+  /// Character trigrams of `term` padded with a boundary marker on each side, so that "ab" still
+  /// yields two trigrams and word starts and ends weigh in the similarity.
+  static List<String> trigrams(String term) {
+    String padded = "$" + term + "$";
+    String[] grams = new String[padded.length() - 2];
+    for (int i = 0; i < grams.length; i++) {
+      grams[i] = padded.substring(i, i + 3);
+    }
+    return Arrays.stream(grams).distinct().toList();
+  }
+
+  private static Stream<String> split(String text) {
+    if (text == null || text.isBlank()) {
+      return Stream.empty();
+    }
+    String plain = HTML_ENTITY.matcher(HTML_TAG.matcher(text).replaceAll(" ")).replaceAll(" ");
+    String folded =
+        COMBINING_MARKS
+            .matcher(Normalizer.normalize(plain, Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+    return NON_WORD.splitAsStream(folded).filter(term -> !term.isEmpty());
+  }
+}
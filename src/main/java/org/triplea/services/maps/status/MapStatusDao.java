@@ -1,12 +1,10 @@
 package org.triplea.services.maps.status;
 
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collection;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
-import org.triplea.http.client.lobby.maps.listing.MapTag;
 
 /// Reads maps together with their currently-assigned attribute values for the status page, and
 /// writes a single map's attribute assignment in `map_index_attribute`.
@@ -22,6 +20,13 @@ public class MapStatusDao {
   /// All maps (newest commit first), each with its read-only tag list and its attribute->value
   /// selections. Maps with no attributes still appear, with empty tags and selections.
   public List<MapStatusRow> listMapsWithAttributes() {
+    return listMapsWithAttributes(null);
+  }
+
+  /// As [#listMapsWithAttributes()], restricted to the maps with the given ids (all maps when
+  /// `mapIds` is null). One row per map: the attributes are aggregated in the query rather than
+  /// joined in as one row per attribute.
+  public List<MapStatusRow> listMapsWithAttributes(Collection<Long> mapIds) {
     return jdbi.withHandle(
         handle ->
             handle
@@ -38,90 +43,73 @@ public class MapStatusDao {
                       m.admin_enabled,
                       m.admin_disable_reason,
                       s.last_indexing_attempt last_indexed,
-                      a.id               attribute_id,
-                      a.name             attribute_name,
-                      v.id               value_id,
-                      v.value            value_text
+                      t.attribute_ids,
+                      t.attribute_names,
+                      t.value_ids,
+                      t.value_texts
                     from map_index m
                     left join map_indexing_status s on s.repo_url = m.repo_url
-                    left join map_index_attribute mia on mia.map_index_id = m.id
-                    left join map_attribute a on a.id = mia.map_attribute_id
-                    left join map_attribute_value v on v.id = mia.map_attribute_value_id
-                    order by m.last_commit_date desc, m.map_name, a.display_order, v.display_order
+                    left join lateral (
+                      select
+                        array_agg(a.id order by a.display_order, a.id)    attribute_ids,
+                        array_agg(a.name order by a.display_order, a.id)  attribute_names,
+                        array_agg(v.id order by a.display_order, a.id)    value_ids,
+                        array_agg(v.value order by a.display_order, a.id) value_texts
+                      from map_index_attribute mia
+                      join map_attribute a on a.id = mia.map_attribute_id
+                      join map_attribute_value v on v.id = mia.map_attribute_value_id
+                      where mia.map_index_id = m.id
+                    ) t on true
+                    where :allMaps or m.id = any(:mapIds)
+                    order by m.last_commit_date desc, m.map_name
                     """)
-                .reduceRows(
-                    new LinkedHashMap<Long, MapStatusRow>(),
-                    (accumulator, rowView) -> {
-                      var row =
-                          accumulator.computeIfAbsent(
-                              rowView.getColumn("map_id", Long.class),
-                              id ->
-                                  new MapStatusRow(
-                                      id,
-                                      rowView.getColumn("map_name", String.class),
-                                      rowView.getColumn("preview_image_url", String.class),
-                                      rowView.getColumn("description", String.class),
-                                      rowView.getColumn("last_commit_date", Instant.class),
-                                      rowView.getColumn("enabled", Boolean.class),
-                                      rowView.getColumn("disable_reason", String.class),
-                                      rowView.getColumn("admin_enabled", Boolean.class),
-                                      rowView.getColumn("admin_disable_reason", String.class),
-                                      rowView.getColumn("last_indexed", Instant.class),
-                                      new ArrayList<>(),
-                                      new LinkedHashMap<>()));
-
-                      Integer valueId = rowView.getColumn("value_id", Integer.class);
-                      if (valueId != null) {
-                        int attributeId = rowView.getColumn("attribute_id", Integer.class);
-                        row.tags()
-                            .add(
-                                MapTag.builder()
-                                    .name(rowView.getColumn("attribute_name", String.class))
-                                    .value(rowView.getColumn("value_text", String.class))
-                                    .build());
-                        row.selections().put(attributeId, valueId);
-                      }
-                      return accumulator;
-                    })
-                .values()
-                .stream()
-                .toList());
+                .bind("allMaps", mapIds == null)
+                .bindArray("mapIds", Long.class, mapIds == null ? List.of() : mapIds)
+                .map(new MapStatusRowMapper())
+                .list());
   }
 
   /// Assigns `valueId` to `attributeId` for the given map, replacing any existing value for that
   /// dimension. The composite foreign key on `map_index_attribute` rejects a value that does not
   /// belong to the named attribute.
   public void setAttribute(long mapId, int attributeId, int valueId) {
-    jdbi.useHandle(
-        handle ->
-            handle
-                .createUpdate(
-                    """
-                    insert into map_index_attribute
-                        (map_index_id, map_attribute_id, map_attribute_value_id)
-                    values (:mapId, :attributeId, :valueId)
-                    on conflict (map_index_id, map_attribute_id)
-                    do update set map_attribute_value_id = excluded.map_attribute_value_id
-                    """)
-                .bind("mapId", mapId)
-                .bind("attributeId", attributeId)
-                .bind("valueId", valueId)
-                .execute());
+    jdbi.useTransaction(
+        handle -> {
+          handle
+              .createUpdate(
+                  """
+                  insert into map_index_attribute
+                      (map_index_id, map_attribute_id, map_attribute_value_id)
+                  values (:mapId, :attributeId, :valueId)
+                  on conflict (map_index_id, map_attribute_id)
+                  do update set map_attribute_value_id = excluded.map_attribute_value_id
+                  """)
+              .bind("mapId", mapId)
+              .bind("attributeId", attributeId)
+              .bind("valueId", valueId)
+              .execute();
+          touchMap(handle, mapId);
+        });
   }
 
   /// Removes the map's value for `attributeId` (a no-op if it had none).
   public void clearAttribute(long mapId, int attributeId) {
-    jdbi.useHandle(
-        handle ->
-            handle
-                .createUpdate(
-                    """
-                    delete from map_index_attribute
-                    where map_index_id = :mapId and map_attribute_id = :attributeId
-                    """)
-                .bind("mapId", mapId)
-                .bind("attributeId", attributeId)
-                .execute());
+    jdbi.useTransaction(
+        handle -> {
+          int deleted =
+              handle
+                  .createUpdate(
+                      """
+                      delete from map_index_attribute
+                      where map_index_id = :mapId and map_attribute_id = :attributeId
+                      """)
+                  .bind("mapId", mapId)
+                  .bind("attributeId", attributeId)
+                  .execute();
+          if (deleted > 0) {
+            touchMap(handle, mapId);
+          }
+        });
   }
 
   /// Admin-approves the map: sets `admin_enabled` and clears its disable reason. Independent of the
@@ -134,7 +122,7 @@ public class MapStatusDao {
                 .createUpdate(
                     """
                     update map_index
-                    set admin_enabled = true, admin_disable_reason = null
+                    set admin_enabled = true, admin_disable_reason = null, date_updated = now()
                     where id = :mapId
                     """)
                 .bind("mapId", mapId)
@@ -150,11 +138,21 @@ public class MapStatusDao {
                 .createUpdate(
                     """
                     update map_index
-                    set admin_enabled = false, admin_disable_reason = :reason
+                    set admin_enabled = false, admin_disable_reason = :reason,
+                        date_updated = now()
                     where id = :mapId
                     """)
                 .bind("mapId", mapId)
                 .bind("reason", reason)
                 .execute());
   }
+
+  /// Advances `map_index.date_updated` for a map whose attributes changed, so the public listing's
+  /// `Last-Modified` moves with it.
+  private static void touchMap(Handle handle, long mapId) {
+    handle
+        .createUpdate("update map_index set date_updated = now() where id = :mapId")
+        .bind("mapId", mapId)
+        .execute();
+  }
 }
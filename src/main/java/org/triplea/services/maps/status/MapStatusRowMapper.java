@@ -0,0 +1,50 @@
+package org.triplea.services.maps.status;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.triplea.http.client.lobby.maps.listing.MapTag;
+
+/// Maps one row of the status query, a map with its attributes aggregated into the parallel arrays
+/// `attribute_ids`, `attribute_names`, `value_ids` and `value_texts` (all null when the map has no
+/// attributes), to a [MapStatusRow].
+class MapStatusRowMapper implements RowMapper<MapStatusRow> {
+
+  @Override
+  public MapStatusRow map(ResultSet rs, StatementContext ctx) throws SQLException {
+    List<MapTag> tags = new ArrayList<>();
+    Map<Integer, Integer> selections = new LinkedHashMap<>();
+    Array attributeIds = rs.getArray("attribute_ids");
+    if (attributeIds != null) {
+      Integer[] attributeIdArray = (Integer[]) attributeIds.getArray();
+      String[] nameArray = (String[]) rs.getArray("attribute_names").getArray();
+      Integer[] valueIdArray = (Integer[]) rs.getArray("value_ids").getArray();
+      String[] valueArray = (String[]) rs.getArray("value_texts").getArray();
+      for (int i = 0; i < attributeIdArray.length; i++) {
+        tags.add(MapTag.builder().name(nameArray[i]).value(valueArray[i]).build());
+        selections.put(attributeIdArray[i], valueIdArray[i]);
+      }
+    }
+    OffsetDateTime lastIndexed = rs.getObject("last_indexed", OffsetDateTime.class);
+    return new MapStatusRow(
+        rs.getLong("map_id"),
+        rs.getString("map_name"),
+        rs.getString("preview_image_url"),
+        rs.getString("description"),
+        rs.getObject("last_commit_date", OffsetDateTime.class).toInstant(),
+        rs.getBoolean("enabled"),
+        rs.getString("disable_reason"),
+        rs.getBoolean("admin_enabled"),
+        rs.getString("admin_disable_reason"),
+        lastIndexed == null ? null : lastIndexed.toInstant(),
+        tags,
+        selections);
+  }
+}
@@ -16,10 +16,15 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.jdbi.v3.core.Jdbi;
 import org.triplea.services.auth.CsrfProtected;
 import org.triplea.services.auth.CsrfTokenProvider;
@@ -28,8 +33,12 @@ import org.triplea.services.auth.RequestIdentity;
 import org.triplea.services.auth.RequiresMapAdmin;
 import org.triplea.services.maps.attributes.AttributeWithValues;
 import org.triplea.services.maps.attributes.MapAttributeDao;
+import org.triplea.services.maps.listing.MapListingCache;
+import org.triplea.services.maps.search.MapSearchHit;
+import org.triplea.services.maps.search.MapSearchIndex;
 
-/// Renders the public map status page: a listing of all indexed maps and their attributes.
+/// Renders the public map status page: a listing of all indexed maps and their attributes, with
+/// a search box backed by the in-memory [MapSearchIndex].
 ///
 /// The GET render is public; the per-map attribute edit controls (one dropdown per dimension) are
 /// shown only to a MapAdmin. Setting/clearing a map's value runs through the single MapAdmin-only
@@ -44,10 +53,13 @@ import org.triplea.services.maps.attributes.MapAttributeDao;
 public class MapsStatusController {
 
   private static final URI SELF = URI.create("/support/maps/status");
+  private static final int MAX_SEARCH_RESULTS = 200;
 
   @Inject Jdbi jdbi;
   @Inject CsrfTokenProvider csrfTokenProvider;
   @Inject RequestIdentity requestIdentity;
+  @Inject MapListingCache mapListingCache;
+  @Inject MapSearchIndex mapSearchIndex;
 
   private MapStatusDao statusDao;
   private MapAttributeDao attributeDao;
@@ -63,6 +75,7 @@ public class MapsStatusController {
     public static native TemplateInstance statusPage(
         List<MapStatusItem> maps,
         List<AttributeWithValues> attributes,
+        String query,
         String csrfToken,
         Identity identity);
 
@@ -78,12 +91,15 @@ public class MapsStatusController {
         MapStatusItem map, String csrfToken, Identity identity);
   }
 
+  /// Renders the page; with a non-blank `q`, only the maps matching it, best match first (the
+  /// search box re-requests this as the user types and HTMX swaps in just the results).
   @GET
   @Produces(MediaType.TEXT_HTML)
-  public TemplateInstance statusPage() {
+  public TemplateInstance statusPage(@QueryParam("q") @DefaultValue("") String query) {
     var identity = requestIdentity.get();
+    var maps = query.isBlank() ? loadMaps() : searchMaps(query);
     return Templates.statusPage(
-        loadMaps(), attributeDao.listAttributes(), csrfToken(identity), identity);
+        maps, attributeDao.listAttributes(), query, csrfToken(identity), identity);
   }
 
   @POST
@@ -100,6 +116,7 @@ public class MapsStatusController {
     } else {
       statusDao.setAttribute(mapId, attributeId, Integer.parseInt(valueId.trim()));
     }
+    mapListingCache.invalidate();
     return hxRequest.isBlank() ? redirectHome() : cellFragment(mapId);
   }
 
@@ -117,6 +134,7 @@ public class MapsStatusController {
       throw new BadRequestException("A reason is required to disable a map.");
     }
     statusDao.disableMap(mapId, reason.trim());
+    mapListingCache.invalidate();
     return hxRequest.isBlank() ? redirectHome() : adminFragment(mapId);
   }
 
@@ -129,6 +147,7 @@ public class MapsStatusController {
       @PathParam("mapId") long mapId,
       @HeaderParam("HX-Request") @DefaultValue("") String hxRequest) {
     statusDao.approveMap(mapId);
+    mapListingCache.invalidate();
     return hxRequest.isBlank() ? redirectHome() : adminFragment(mapId);
   }
 
@@ -164,6 +183,20 @@ public class MapsStatusController {
     return statusDao.listMapsWithAttributes().stream().map(MapStatusItem::of).toList();
   }
 
+  /// The maps matching `query` in rank order. The search runs in memory; only the matched rows
+  /// are then read from the database.
+  private List<MapStatusItem> searchMaps(String query) {
+    List<Long> rankedIds =
+        mapSearchIndex.search(query, MAX_SEARCH_RESULTS, false).stream()
+            .map(MapSearchHit::id)
+            .toList();
+    Map<Long, MapStatusItem> byId =
+        statusDao.listMapsWithAttributes(rankedIds).stream()
+            .map(MapStatusItem::of)
+            .collect(Collectors.toMap(MapStatusItem::id, Function.identity()));
+    return rankedIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+  }
+
   /// A CSRF token (and thus the issued cookie) only for MapAdmins, who are the only callers that
   /// render the edit forms; anonymous visitors of the public page get neither.
   private String csrfToken(Identity identity) {
@@ -0,0 +1,157 @@
+-- Change tracking for the public map listing, so a client can fetch only what changed since the
+-- listing version it last saw (see MapListingChangesController).
+--
+-- Every write that can change a map's listing entry marks its map_index row as changed:
+--   - inserts into map_index, and updates to a listed column or to either enabled flag;
+--   - any insert, update or delete of the map's map_index_attribute rows;
+--   - renaming or re-ordering an attribute or value, for every map that uses it.
+-- Rows are never deleted from map_index (disabled maps are kept), so a map that leaves the listing
+-- keeps its row, and its new version is what the delta endpoint reports as a tombstone.
+--
+-- Versions must become visible in the order they were issued: a client that has seen version N
+-- asks for changes after N, so a transaction that drew a lower version but committed later would
+-- never be reported. So versions are assigned when a transaction commits, not when it writes. A
+-- write only marks its map_index row with the writing transaction's id and notes that transaction
+-- in map_listing_version_txn. A deferred constraint trigger on that note runs once per
+-- transaction, right before it commits: it takes an advisory lock, draws one version and stamps
+-- every row the transaction marked. The lock is only released once that commit is done, so
+-- whichever transaction draws the lower version is also visible first, while the lock covers the
+-- stamping and the commit only, not the transaction's own work.
+
+create sequence map_listing_version_seq;
+
+-- Existing maps each draw a version here; afterwards inserts start at 0, which is never visible
+-- outside the inserting transaction, and draw their version at commit like updates do.
+alter table map_index
+    add column change_version bigint not null default nextval('map_listing_version_seq');
+
+alter table map_index
+    alter column change_version set default 0;
+
+create index map_index_change_version_idx on map_index (change_version);
+
+alter table map_index
+    add column pending_version_xid xid8;
+
+create index map_index_pending_version_idx on map_index (pending_version_xid)
+    where pending_version_xid is not null;
+
+create table map_listing_version_txn
+(
+    xid xid8 primary key
+);
+
+comment on table map_listing_version_txn is
+    'Transactions that changed the map listing and draw a listing version when they commit.';
+
+
+-- Marks the current transaction as having changed the listing and returns its id, to be stored
+-- in map_index.pending_version_xid.
+create function mark_map_listing_changed() returns xid8
+    language plpgsql as
+$$
+begin
+    insert into map_listing_version_txn (xid) values (pg_current_xact_id())
+    on conflict do nothing;
+    return pg_current_xact_id();
+end;
+$$;
+
+create function map_listing_assign_version() returns trigger
+    language plpgsql as
+$$
+declare
+    version bigint;
+begin
+    perform pg_advisory_xact_lock(hashtext('map_listing_version'));
+    version := nextval('map_listing_version_seq');
+    update map_index set change_version = version, pending_version_xid = null
+    where pending_version_xid = new.xid;
+    delete from map_listing_version_txn where xid = new.xid;
+    return null;
+end;
+$$;
+
+create constraint trigger map_listing_assign_version
+    after insert on map_listing_version_txn
+    deferrable initially deferred
+    for each row execute function map_listing_assign_version();
+
+
+create function map_index_stamp_version() returns trigger
+    language plpgsql as
+$$
+begin
+    if tg_op = 'INSERT'
+        or (new.map_name, new.last_commit_date, new.preview_image_url, new.description,
+            new.download_size_bytes, new.download_url, new.enabled, new.admin_enabled)
+           is distinct from
+           (old.map_name, old.last_commit_date, old.preview_image_url, old.description,
+            old.download_size_bytes, old.download_url, old.enabled, old.admin_enabled) then
+        new.pending_version_xid := mark_map_listing_changed();
+    end if;
+    return new;
+end;
+$$;
+
+create trigger map_index_stamp_version
+    before insert or update on map_index
+    for each row execute function map_index_stamp_version();
+
+
+create function map_index_attribute_stamp_version() returns trigger
+    language plpgsql as
+$$
+begin
+    if tg_op <> 'INSERT' then
+        update map_index set pending_version_xid = mark_map_listing_changed()
+        where id = old.map_index_id;
+    end if;
+    if tg_op = 'INSERT' or (tg_op = 'UPDATE' and new.map_index_id <> old.map_index_id) then
+        update map_index set pending_version_xid = mark_map_listing_changed()
+        where id = new.map_index_id;
+    end if;
+    return null;
+end;
+$$;
+
+create trigger map_index_attribute_stamp_version
+    after insert or update or delete on map_index_attribute
+    for each row execute function map_index_attribute_stamp_version();
+
+
+-- Catalog edits change the tags of every map using the edited entry. Deleting an attribute or
+-- value needs no trigger here: it cascades to map_index_attribute, whose trigger covers it.
+create function map_attribute_stamp_version() returns trigger
+    language plpgsql as
+$$
+begin
+    update map_index set pending_version_xid = mark_map_listing_changed()
+    where id in (select map_index_id from map_index_attribute where map_attribute_id = new.id);
+    return null;
+end;
+$$;
+
+create trigger map_attribute_stamp_version
+    after update on map_attribute
+    for each row
+    when ((new.name, new.display_order) is distinct from (old.name, old.display_order))
+    execute function map_attribute_stamp_version();
+
+
+create function map_attribute_value_stamp_version() returns trigger
+    language plpgsql as
+$$
+begin
+    update map_index set pending_version_xid = mark_map_listing_changed()
+    where id in (select map_index_id from map_index_attribute
+                 where map_attribute_value_id = new.id);
+    return null;
+end;
+$$;
+
+create trigger map_attribute_value_stamp_version
+    after update on map_attribute_value
+    for each row
+    when ((new.value, new.display_order) is distinct from (old.value, old.display_order))
+    execute function map_attribute_value_stamp_version();
@@ -0,0 +1,47 @@
+-- Materialized projection of the public map listing: one row per map with its tags already
+-- aggregated in attribute display order, so serving the listing is a single indexed scan with no
+-- joins (see MapListingDao).
+--
+-- Maps that are not publicly listed (indexer-disabled, admin-disabled or 'DELETED') stay in the
+-- view with `listed = false` and a `removed_reason`: they are the tombstones the delta endpoint
+-- reports, and keeping them means the listing version (max change_version) and the rows it
+-- describes always come from the same refresh.
+--
+-- The application refreshes the view concurrently after every write that can change the listing
+-- (see MapListingCache#invalidate) and once at startup. The unique index on `id` is what
+-- `refresh materialized view concurrently` requires.
+create materialized view map_listing as
+select
+    m.id,
+    m.map_name,
+    m.download_url,
+    m.download_size_bytes,
+    m.preview_image_url,
+    m.description,
+    m.last_commit_date,
+    m.date_updated,
+    m.change_version,
+    m.enabled and m.admin_enabled listed,
+    case
+        when m.enabled and m.admin_enabled then null
+        when not m.enabled and m.disable_reason = 'DELETED' then 'DELETED'
+        when not m.enabled then 'DISABLED'
+        else 'ADMIN_DISABLED'
+    end removed_reason,
+    t.attribute_names,
+    t.attribute_values
+from map_index m
+left join lateral (
+    select
+        array_agg(a.name order by a.display_order, a.id)  attribute_names,
+        array_agg(v.value order by a.display_order, a.id) attribute_values
+    from map_index_attribute mia
+    join map_attribute a on a.id = mia.map_attribute_id
+    join map_attribute_value v on v.id = mia.map_attribute_value_id
+    where mia.map_index_id = m.id
+) t on true;
+
+create unique index map_listing_id_uk on map_listing (id);
+create index map_listing_order_idx on map_listing (last_commit_date desc, map_name, id)
+    where listed;
+create index map_listing_change_version_idx on map_listing (change_version);
@@ -0,0 +1,18 @@
+-- GitHub API responses kept by the map indexer so that each request can be sent conditionally
+-- (If-None-Match / If-Modified-Since). GitHub answers an unchanged resource with 304 Not Modified,
+-- which does not count against the API rate limit, and the stored body is used instead.
+--
+-- One row per request path (with its query string), overwritten by each full response.
+
+create table github_response_cache
+(
+    request_path  varchar(512) primary key,
+    etag          varchar(256),
+    last_modified varchar(64),
+    body          text         not null,
+    date_updated  timestamptz  not null default now(),
+    check (etag is not null or last_modified is not null)
+);
+
+comment on table github_response_cache is
+    'Last full GitHub API response per request path, with its validators, for conditional GETs.';
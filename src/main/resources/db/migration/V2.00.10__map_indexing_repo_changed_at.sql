@@ -0,0 +1,8 @@
+-- The repo's last-change time (the later of pushed_at and updated_at from Github's organization
+-- repository listing) as of the last indexing pass that left the map up to date. A later pass
+-- whose listing reports the same time skips the repo without any further Github API calls.
+-- Null until the repo indexes cleanly, and reset to null by an indexing error so the repo is
+-- retried on the next pass.
+
+alter table map_indexing_status
+    add column repo_changed_at timestamptz;
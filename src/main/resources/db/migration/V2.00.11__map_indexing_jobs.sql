@@ -0,0 +1,42 @@
+-- Durable work queue for map indexing, so that every node with map indexing enabled shares a pass
+-- instead of each running its own.
+--
+-- A full pass is one map_indexing_run row. Whichever node starts it lists the map repos and writes
+-- one map_indexing_job row per repo; workers on any node then claim jobs one at a time with
+-- `for update skip locked`, holding a lease until they delete the finished job. A job whose lease
+-- expires (its node died or hung) becomes claimable again. Once a run has no jobs left it is
+-- marked finished, and the listing cache is refreshed if any of its jobs changed a map.
+
+create table map_indexing_run
+(
+    id              bigserial primary key,
+    started_at      timestamptz not null default now(),
+    listing_changed boolean     not null default false,
+    finished_at     timestamptz
+);
+
+comment on table map_indexing_run is
+    'One full map indexing pass; finished once none of its map_indexing_job rows are left.';
+
+create table map_indexing_job
+(
+    repo_url         varchar(256) primary key check (repo_url like 'http%'),
+    run_id           bigint       not null references map_indexing_run (id) on delete cascade,
+    default_branch   varchar(128) not null,
+    -- pushed_at / updated_at from the organization repository listing
+    pushed_at        timestamptz,
+    updated_at       timestamptz,
+    -- last commit date on the default branch, when the run fetched it up front through GraphQL
+    head_commit_date timestamptz,
+    attempts         integer      not null default 0,
+    -- set while a worker holds the job; the token is new on every claim
+    lease_token      uuid,
+    lease_owner      varchar(128),
+    lease_expires_at timestamptz,
+    date_created     timestamptz  not null default now()
+);
+
+create index map_indexing_job_run_id on map_indexing_job (run_id);
+
+comment on table map_indexing_job is
+    'A map repo waiting to be indexed, leased by at most one worker at a time.';
@@ -0,0 +1,7 @@
+-- When indexing a repo last failed for a transient reason (a network error, or a GitHub or
+-- download server error), result_code is TEMPORARY_ERROR and next_retry_at is when its job in
+-- map_indexing_job may next be claimed. The map's map_index row is left as it was. Null once the
+-- repo indexes, fails for good, or has run out of retries until the next pass.
+
+alter table map_indexing_status
+    add column next_retry_at timestamptz;
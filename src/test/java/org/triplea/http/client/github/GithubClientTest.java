@@ -1,20 +1,31 @@
 package org.triplea.http.client.github;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsCollectionContaining.hasItem;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -41,15 +52,30 @@ class GithubClientTest {
 
     assertThat(repos, hasSize(3));
 
-    for (String uri :
+    for (List<String> repo :
         List.of(
-            "https://github.com/triplea-maps/tutorial",
-            "https://github.com/triplea-maps/aa_enhanced_revised",
-            "https://github.com/triplea-maps/roman_invasion")) {
+            List.of(
+                "https://github.com/triplea-maps/tutorial",
+                "2021-02-04T19:31:31Z",
+                "2021-02-04T19:31:35Z"),
+            List.of(
+                "https://github.com/triplea-maps/aa_enhanced_revised",
+                "2017-12-14T04:37:33Z",
+                "2016-02-02T09:33:26Z"),
+            List.of(
+                "https://github.com/triplea-maps/roman_invasion",
+                "2017-12-14T04:28:01Z",
+                "2016-02-02T09:33:59Z"))) {
 
       assertThat(
           repos, //
-          hasItem(MapRepoListing.builder().uri(uri).defaultBranch("main").build()));
+          hasItem(
+              MapRepoListing.builder()
+                  .uri(repo.get(0))
+                  .defaultBranch("main")
+                  .pushedAt(repo.get(1))
+                  .updatedAt(repo.get(2))
+                  .build()));
     }
   }
 
@@ -97,4 +123,151 @@ class GithubClientTest {
 
     assertThat(latestVersion, is("2.5.22294"));
   }
+
+  @Test
+  @DisplayName("A rate-limited request is retried and the quota headers reach the limiter")
+  void retriesRateLimitedRequest(@WiremockResolver.Wiremock final WireMockServer server) {
+    final String branchPath = "/repos/example-org/map-repo/branches/master";
+    final String reset = String.valueOf(Instant.now().plusSeconds(1800).getEpochSecond());
+    server.stubFor(
+        get(branchPath)
+            .inScenario("rate limited")
+            .whenScenarioStateIs(Scenario.STARTED)
+            .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+            .willSetStateTo("retried"));
+    server.stubFor(
+        get(branchPath)
+            .inScenario("rate limited")
+            .whenScenarioStateIs("retried")
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("X-RateLimit-Limit", "5000")
+                    .withHeader("X-RateLimit-Remaining", "4321")
+                    .withHeader("X-RateLimit-Reset", reset)
+                    .withBody(
+                        TestDataFileReader.readContents(
+                            "sample_responses/branch_listing_response.json"))));
+
+    final GithubClient client =
+        GithubClient.build(URI.create(server.baseUrl()), "test-token", "example-org");
+    client.fetchBranchInfo("map-repo", "master");
+
+    assertThat(client.rateLimiter().remaining(), is(4321));
+    assertThat(client.rateLimiter().limit(), is(5000));
+  }
+
+  @Test
+  @DisplayName("An interactive client fails a rate-limited request at once instead of retrying")
+  void interactiveClientDoesNotRetryRateLimitedRequest(
+      @WiremockResolver.Wiremock final WireMockServer server) {
+    final String issuesPath = "/repos/example-org/error-reports/issues";
+    server.stubFor(
+        post(issuesPath).willReturn(aResponse().withStatus(429).withHeader("Retry-After", "120")));
+
+    final GithubClient client =
+        GithubClient.buildInteractive(URI.create(server.baseUrl()), "test-token", "example-org");
+
+    final GithubRateLimitedException exception =
+        assertThrows(
+            GithubRateLimitedException.class,
+            () -> client.newIssue("error-reports", CreateIssueRequest.builder().build()));
+    assertThat(exception.getRetryAfter(), is(Duration.ofSeconds(120)));
+    server.verify(1, postRequestedFor(urlEqualTo(issuesPath)));
+
+    // The pause applies to the next report too, which is turned away without a request.
+    assertThrows(
+        GithubRateLimitedException.class,
+        () -> client.newIssue("error-reports", CreateIssueRequest.builder().build()));
+    server.verify(1, postRequestedFor(urlEqualTo(issuesPath)));
+  }
+
+  @Test
+  @DisplayName("A cached response is revalidated with its ETag and reused on 304 Not Modified")
+  void revalidatesCachedResponse(@WiremockResolver.Wiremock final WireMockServer server) {
+    final String branchPath = "/repos/example-org/map-repo/branches/master";
+    final String exampleResponse =
+        TestDataFileReader.readContents("sample_responses/branch_listing_response.json");
+    server.stubFor(
+        get(branchPath)
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("ETag", "\"abc\"")
+                    .withBody(exampleResponse)));
+    server.stubFor(
+        get(branchPath)
+            .withHeader("If-None-Match", equalTo("\"abc\""))
+            .willReturn(aResponse().withStatus(304).withHeader("ETag", "\"abc\"")));
+    final Map<String, GithubResponseCache.CachedResponse> stored = new ConcurrentHashMap<>();
+    final GithubResponseCache cache =
+        new GithubResponseCache() {
+          @Override
+          public Optional<CachedResponse> get(final String path) {
+            return Optional.ofNullable(stored.get(path));
+          }
+
+          @Override
+          public void put(final String path, final CachedResponse response) {
+            stored.put(path, response);
+          }
+        };
+    final GithubClient client =
+        GithubClient.build(URI.create(server.baseUrl()), "test-token", "example-org", cache);
+
+    final Instant first = client.getLatestCommitDate("map-repo", "master");
+    final Instant second = client.getLatestCommitDate("map-repo", "master");
+
+    assertThat(second, is(first));
+    assertThat(stored.get(branchPath).etag(), is("\"abc\""));
+    server.verify(1, getRequestedFor(urlEqualTo(branchPath)).withoutHeader("If-None-Match"));
+    server.verify(
+        1, getRequestedFor(urlEqualTo(branchPath)).withHeader("If-None-Match", equalTo("\"abc\"")));
+  }
+
+  @Test
+  @DisplayName("Default branch heads are paged through the GraphQL API")
+  void fetchDefaultBranchHeads(@WiremockResolver.Wiremock final WireMockServer server) {
+    server.stubFor(
+        post("/graphql")
+            .atPriority(2)
+            .withHeader("Authorization", equalTo("token test-token"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        TestDataFileReader.readContents(
+                            "sample_responses/graphql_branch_heads_page1.json"))));
+    server.stubFor(
+        post("/graphql")
+            .atPriority(1)
+            .withRequestBody(containing("Y3Vyc29yOnYyOpHOAAAAZA"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        TestDataFileReader.readContents(
+                            "sample_responses/graphql_branch_heads_page2.json"))));
+
+    final List<BranchHead> heads =
+        GithubClient.build(URI.create(server.baseUrl()), "test-token", "example-org")
+            .fetchDefaultBranchHeads();
+
+    assertThat(
+        heads,
+        is(
+            List.of(
+                BranchHead.builder()
+                    .repoUri("https://github.com/triplea-maps/tutorial")
+                    .branch("main")
+                    .lastCommitDate(Instant.parse("2021-02-04T19:31:00Z"))
+                    .build(),
+                BranchHead.builder()
+                    .repoUri("https://github.com/triplea-maps/roman_invasion")
+                    .branch("master")
+                    .lastCommitDate(Instant.parse("2017-12-14T04:27:58Z"))
+                    .build())));
+    server.verify(
+        2, postRequestedFor(urlEqualTo("/graphql")).withRequestBody(containing("example-org")));
+  }
 }
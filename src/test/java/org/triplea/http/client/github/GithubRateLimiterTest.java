@@ -0,0 +1,115 @@
+package org.triplea.http.client.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class GithubRateLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  /// 3600 requests per hour: one token per second.
+  private final GithubRateLimiter limiter = new GithubRateLimiter(3600, 2, clock::get);
+
+  @Test
+  void burstGoesOutWithoutWaiting() {
+    assertThat(limiter.reserve()).isZero();
+    assertThat(limiter.reserve()).isZero();
+  }
+
+  @Test
+  void requestsBeyondTheBurstWaitForTheirOwnToken() {
+    limiter.reserve();
+    limiter.reserve();
+
+    assertThat(limiter.reserve()).isEqualTo(Duration.ofSeconds(1).toNanos());
+    assertThat(limiter.reserve()).isEqualTo(Duration.ofSeconds(2).toNanos());
+  }
+
+  @Test
+  void tokensRefillOverTimeUpToTheBurst() {
+    limiter.reserve();
+    limiter.reserve();
+
+    clock.addAndGet(Duration.ofHours(1).toNanos());
+
+    assertThat(limiter.reserve()).isZero();
+    assertThat(limiter.reserve()).isZero();
+    assertThat(limiter.reserve()).isPositive();
+  }
+
+  @Test
+  void plentifulQuotaCloseToResetSpeedsUp() {
+    // 3600 of 5000 left with 10 minutes to go: spend the 3550 above the reserve over 600s.
+    limiter.update(5000, 3600, Duration.ofMinutes(10));
+
+    assertThat(limiter.requestsPerHour()).isCloseTo(3550 * 6.0, within(0.001));
+  }
+
+  @Test
+  void nearlyExhaustedQuotaPausesUntilReset() {
+    limiter.update(60, 1, Duration.ofMinutes(20));
+
+    assertThat(limiter.pausedFor()).isEqualTo(Duration.ofMinutes(20));
+    assertThat(limiter.reserve()).isEqualTo(Duration.ofMinutes(20).toNanos());
+
+    clock.addAndGet(Duration.ofMinutes(20).toNanos());
+
+    assertThat(limiter.pausedFor()).isZero();
+  }
+
+  @Test
+  void retryAfterHoldsEveryCaller() {
+    limiter.pause(Duration.ofSeconds(30));
+
+    assertThat(limiter.reserve()).isEqualTo(Duration.ofSeconds(30).toNanos());
+    assertThat(limiter.reserve()).isEqualTo(Duration.ofSeconds(30).toNanos());
+  }
+
+  @Test
+  void tryAcquireNeverWaitsForTokens() {
+    limiter.reserve();
+    limiter.reserve();
+
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.reserve()).isEqualTo(Duration.ofSeconds(2).toNanos());
+  }
+
+  @Test
+  void tryAcquireMaySpendTheReserve() {
+    limiter.update(60, 1, Duration.ofMinutes(20));
+
+    assertThat(limiter.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void tryAcquireFailsWhileGithubAsksToWait() {
+    limiter.pause(Duration.ofSeconds(30));
+
+    assertThat(limiter.tryAcquire()).isFalse();
+
+    clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+    assertThat(limiter.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void tryAcquireFailsOnceTheQuotaIsSpent() {
+    limiter.update(60, 0, Duration.ofMinutes(20));
+
+    assertThat(limiter.tryAcquire()).isFalse();
+  }
+
+  @Test
+  void reportsTheQuotaGithubLastSent() {
+    assertThat(limiter.remaining()).isEqualTo(-1);
+
+    limiter.update(5000, 4321, Duration.ofMinutes(30));
+
+    assertThat(limiter.limit()).isEqualTo(5000);
+    assertThat(limiter.remaining()).isEqualTo(4321);
+  }
+}
@@ -2,6 +2,7 @@ package org.triplea.http.client.github;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.Instant;
 import org.junit.jupiter.api.Test;
 
 class MapRepoListingTest {
@@ -19,4 +20,20 @@ class MapRepoListingTest {
 
     assertThat(repoName).isEqualTo("fake-map");
   }
+
+  @Test
+  void lastChangedIsTheLaterOfPushedAndUpdated() {
+    var listing =
+        MapRepoListing.builder()
+            .uri("https://github.com/triplea-maps/fake-map")
+            .pushedAt("2017-12-14T04:37:33Z")
+            .updatedAt("2016-02-02T09:33:26Z")
+            .build();
+
+    assertThat(listing.getLastChanged()).isEqualTo(Instant.parse("2017-12-14T04:37:33Z"));
+    assertThat(listing.toBuilder().updatedAt("2018-01-01T00:00:00Z").build().getLastChanged())
+        .isEqualTo(Instant.parse("2018-01-01T00:00:00Z"));
+    assertThat(listing.toBuilder().pushedAt(null).build().getLastChanged())
+        .isEqualTo(Instant.parse("2016-02-02T09:33:26Z"));
+  }
 }
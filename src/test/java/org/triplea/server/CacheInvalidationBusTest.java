@@ -0,0 +1,53 @@
+package org.triplea.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationBusTest {
+
+  private final CacheInvalidationBus bus = new CacheInvalidationBus();
+  private final AtomicInteger listingInvalidations = new AtomicInteger();
+
+  CacheInvalidationBusTest() {
+    bus.subscribe("map_listing", listingInvalidations::incrementAndGet);
+  }
+
+  @Test
+  void anotherNodesNotificationRunsTheTopicsSubscribers() {
+    bus.dispatch("other-node:map_listing");
+
+    assertThat(listingInvalidations).hasValue(1);
+  }
+
+  @Test
+  void otherTopicsAreIgnored() {
+    bus.dispatch("other-node:attributes");
+
+    assertThat(listingInvalidations).hasValue(0);
+  }
+
+  @Test
+  void malformedPayloadsAreIgnored() {
+    bus.dispatch("map_listing");
+
+    assertThat(listingInvalidations).hasValue(0);
+  }
+
+  @Test
+  void aFailingSubscriberDoesNotStopTheOthers() {
+    bus.subscribe(
+        "map_listing",
+        () -> {
+          throw new IllegalStateException("boom");
+        });
+    AtomicInteger later = new AtomicInteger();
+    bus.subscribe("map_listing", later::incrementAndGet);
+
+    bus.dispatch("other-node:map_listing");
+
+    assertThat(listingInvalidations).hasValue(1);
+    assertThat(later).hasValue(1);
+  }
+}
@@ -0,0 +1,100 @@
+package org.triplea.services.maps.indexing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.triplea.http.client.github.MapRepoListing;
+
+class GithubWebhookControllerTest {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /// The example from Github's "Validating webhook deliveries" documentation.
+  @Test
+  void acceptsGithubsExampleSignature() {
+    byte[] body = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+
+    assertThat(
+            GithubWebhookController.signatureMatches(
+                "It's a Secret to Everybody",
+                body,
+                "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17"))
+        .isTrue();
+  }
+
+  @Test
+  void rejectsWrongMissingOrMalformedSignatures() {
+    byte[] body = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+    String secret = "It's a Secret to Everybody";
+
+    assertThat(
+            GithubWebhookController.signatureMatches(
+                "another secret",
+                body,
+                "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17"))
+        .isFalse();
+    assertThat(GithubWebhookController.signatureMatches(secret, body, null)).isFalse();
+    assertThat(GithubWebhookController.signatureMatches(secret, body, "sha1=757107ea")).isFalse();
+    assertThat(GithubWebhookController.signatureMatches(secret, body, "sha256=not-hex")).isFalse();
+  }
+
+  @Test
+  void pushToDefaultBranchReindexesTheRepo() throws Exception {
+    JsonNode payload = payload("refs/heads/master", null, "triplea-maps");
+
+    assertThat(GithubWebhookController.repoToReindex("push", payload, "triplea-maps"))
+        .contains(
+            MapRepoListing.builder()
+                .uri("https://github.com/triplea-maps/test-map")
+                .defaultBranch("master")
+                .build());
+  }
+
+  @Test
+  void pushToAnotherBranchIsIgnored() throws Exception {
+    JsonNode payload = payload("refs/heads/feature", null, "triplea-maps");
+
+    assertThat(GithubWebhookController.repoToReindex("push", payload, "triplea-maps")).isEmpty();
+  }
+
+  @Test
+  void repositoryEventsReindexUnlessDeleted() throws Exception {
+    assertThat(
+            GithubWebhookController.repoToReindex(
+                "repository", payload(null, "renamed", "triplea-maps"), "triplea-maps"))
+        .isPresent();
+    assertThat(
+            GithubWebhookController.repoToReindex(
+                "repository", payload(null, "deleted", "triplea-maps"), "triplea-maps"))
+        .isEmpty();
+  }
+
+  @Test
+  void eventsForOtherOrganizationsOrTypesAreIgnored() throws Exception {
+    assertThat(
+            GithubWebhookController.repoToReindex(
+                "push", payload("refs/heads/master", null, "someone-else"), "triplea-maps"))
+        .isEmpty();
+    assertThat(
+            GithubWebhookController.repoToReindex(
+                "star", payload(null, "created", "triplea-maps"), "triplea-maps"))
+        .isEmpty();
+  }
+
+  private static JsonNode payload(String ref, String action, String owner) throws Exception {
+    var payload = OBJECT_MAPPER.createObjectNode();
+    if (ref != null) {
+      payload.put("ref", ref);
+    }
+    if (action != null) {
+      payload.put("action", action);
+    }
+    var repository = payload.putObject("repository");
+    repository.put("html_url", "https://github.com/" + owner + "/test-map");
+    repository.put("default_branch", "master");
+    repository.putObject("owner").put("login", owner);
+    return payload;
+  }
+}
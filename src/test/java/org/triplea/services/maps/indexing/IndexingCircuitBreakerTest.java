@@ -0,0 +1,77 @@
+package org.triplea.services.maps.indexing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class IndexingCircuitBreakerTest {
+
+  private final AtomicLong clock = new AtomicLong(-Duration.ofHours(1).toNanos());
+
+  private final IndexingCircuitBreaker breaker =
+      new IndexingCircuitBreaker(3, Duration.ofMinutes(5), clock::get);
+
+  @Test
+  void startsClosed() {
+    assertThat(breaker.isOpen()).isFalse();
+    assertThat(breaker.openFor()).isZero();
+  }
+
+  @Test
+  void opensOnceFailuresReachTheThreshold() {
+    assertThat(breaker.recordFailure()).isFalse();
+    assertThat(breaker.recordFailure()).isFalse();
+    assertThat(breaker.recordFailure()).isTrue();
+
+    assertThat(breaker.isOpen()).isTrue();
+    assertThat(breaker.openFor()).isEqualTo(Duration.ofMinutes(5));
+  }
+
+  @Test
+  void successResetsTheFailureCount() {
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordSuccess();
+    breaker.recordFailure();
+    breaker.recordFailure();
+
+    assertThat(breaker.isOpen()).isFalse();
+  }
+
+  @Test
+  void closesAgainAfterTheOpenDuration() {
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordFailure();
+
+    clock.addAndGet(Duration.ofMinutes(5).toNanos());
+
+    assertThat(breaker.isOpen()).isFalse();
+  }
+
+  @Test
+  void firstFailureAfterReopeningOpensItAgain() {
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordFailure();
+    clock.addAndGet(Duration.ofMinutes(5).toNanos());
+
+    assertThat(breaker.recordFailure()).isTrue();
+    assertThat(breaker.isOpen()).isTrue();
+  }
+
+  @Test
+  void successAfterReopeningClosesIt() {
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordFailure();
+    clock.addAndGet(Duration.ofMinutes(5).toNanos());
+
+    breaker.recordSuccess();
+
+    assertThat(breaker.recordFailure()).isFalse();
+    assertThat(breaker.isOpen()).isFalse();
+  }
+}
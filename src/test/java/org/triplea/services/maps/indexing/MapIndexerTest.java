@@ -1,11 +1,13 @@
 package org.triplea.services.maps.indexing;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.time.Instant;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.triplea.http.client.github.MapRepoListing;
+import org.triplea.services.maps.indexing.tasks.MapArchiveReader.MapArchive;
 
 class MapIndexerTest {
   private static final Instant instant = Instant.now();
@@ -18,7 +20,6 @@ class MapIndexerTest {
   void verifyMapIndexingHappyCase() {
     final MapIndexer mapIndexer =
         MapIndexer.builder()
-            .lastCommitDateFetcher(repoListing -> Optional.of(instant))
             .mapNameReader(mapRepoListing -> Optional.of("map name"))
             .mapDescriptionReader(mapRepoListing -> "description")
             .downloadSizeFetcher(mapRepoListing -> Optional.of(10L))
@@ -26,7 +27,7 @@ class MapIndexerTest {
 
     var listing = MapRepoListing.builder().uri("http://url").defaultBranch("main").build();
 
-    var mapIndexingResult = mapIndexer.apply(listing);
+    var mapIndexingResult = mapIndexer.apply(listing, instant);
 
     assertThat(mapIndexingResult.getLastCommitDate()).isEqualTo(instant);
     assertThat(mapIndexingResult.getMapName()).isEqualTo("map name");
@@ -39,4 +40,52 @@ class MapIndexerTest {
     assertThat(mapIndexingResult.getPreviewImageUri())
         .isEqualTo(listing.getUri() + "/blob/main/preview.png?raw=true");
   }
+
+  /// In archive mode the name, description and size all come from the one archive read, and the
+  /// per-file readers are not used.
+  @Test
+  void archiveModeReadsEverythingFromTheArchive() {
+    final MapIndexer mapIndexer =
+        MapIndexer.builder()
+            .mapNameReader(
+                mapRepoListing -> {
+                  throw new AssertionError("map.yml should come from the archive");
+                })
+            .mapDescriptionReader(
+                mapRepoListing -> {
+                  throw new AssertionError("description.html should come from the archive");
+                })
+            .downloadSizeFetcher(
+                uri -> {
+                  throw new AssertionError("the size should come from the archive");
+                })
+            .mapArchiveReader(
+                uri -> Optional.of(new MapArchive("map_name: map name", "description", 10L)))
+            .build();
+
+    var listing = MapRepoListing.builder().uri("http://url").defaultBranch("main").build();
+
+    var mapIndexingResult = mapIndexer.apply(listing, instant);
+
+    assertThat(mapIndexingResult.getMapName()).isEqualTo("map name");
+    assertThat(mapIndexingResult.getDescription()).isEqualTo("description");
+    assertThat(mapIndexingResult.getMapDownloadSizeInBytes()).isEqualTo(10L);
+  }
+
+  @Test
+  void archiveModeReportsUnreadableArchive() {
+    final MapIndexer mapIndexer =
+        MapIndexer.builder()
+            .mapNameReader(mapRepoListing -> Optional.empty())
+            .mapDescriptionReader(mapRepoListing -> "")
+            .downloadSizeFetcher(uri -> Optional.empty())
+            .mapArchiveReader(uri -> Optional.empty())
+            .build();
+
+    var listing = MapRepoListing.builder().uri("http://url").defaultBranch("main").build();
+
+    assertThatThrownBy(() -> mapIndexer.apply(listing, instant))
+        .isInstanceOf(MapIndexer.IndexingException.class)
+        .hasMessageContaining("Failed to download the map");
+  }
 }
@@ -0,0 +1,68 @@
+package org.triplea.services.maps.indexing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.triplea.http.client.github.MapRepoListing;
+
+class MapReindexQueueTest {
+  private static final MapRepoListing REPO_A =
+      MapRepoListing.builder()
+          .uri("https://github.com/triplea-maps/a")
+          .defaultBranch("main")
+          .build();
+  private static final MapRepoListing REPO_B =
+      MapRepoListing.builder()
+          .uri("https://github.com/triplea-maps/b")
+          .defaultBranch("main")
+          .build();
+
+  private final List<MapRepoListing> indexed = new CopyOnWriteArrayList<>();
+
+  @Test
+  void burstOfRequestsForOneRepoIndexesItOnce() {
+    try (var queue = new MapReindexQueue(indexed::add, Duration.ofMillis(200))) {
+      queue.enqueue(REPO_A);
+      queue.enqueue(REPO_A);
+      queue.enqueue(REPO_B);
+      queue.enqueue(REPO_A);
+
+      await().until(() -> indexed.size() == 2);
+    }
+
+    assertThat(indexed).containsExactlyInAnyOrder(REPO_A, REPO_B);
+  }
+
+  @Test
+  void requestAfterARunIndexesAgain() {
+    try (var queue = new MapReindexQueue(indexed::add, Duration.ZERO)) {
+      queue.enqueue(REPO_A);
+      await().until(() -> indexed.size() == 1);
+
+      queue.enqueue(REPO_A);
+      await().until(() -> indexed.size() == 2);
+    }
+  }
+
+  @Test
+  void failedRunDoesNotStopTheQueue() {
+    try (var queue =
+        new MapReindexQueue(
+            listing -> {
+              if (listing == REPO_A) {
+                throw new IllegalStateException("test");
+              }
+              indexed.add(listing);
+            },
+            Duration.ZERO)) {
+      queue.enqueue(REPO_A);
+      queue.enqueue(REPO_B);
+
+      await().until(() -> indexed.contains(REPO_B));
+    }
+  }
+}
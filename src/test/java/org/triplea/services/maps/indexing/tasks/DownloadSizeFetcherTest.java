@@ -2,8 +2,16 @@ package org.triplea.services.maps.indexing.tasks;
 
 import static com.github.npathai.hamcrestopt.OptionalMatchers.isEmpty;
 import static com.github.npathai.hamcrestopt.OptionalMatchers.isPresentAndIs;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.head;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.github.tomakehurst.wiremock.WireMockServer;
 import com.google.common.base.Strings;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -11,9 +19,14 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.OptionalLong;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.lanwen.wiremock.ext.WiremockResolver;
+import ru.lanwen.wiremock.ext.WiremockUriResolver;
 
+@ExtendWith({WiremockResolver.class, WiremockUriResolver.class})
 class DownloadSizeFetcherTest {
 
   /// In this test we stub the downloaded content to be a fixed size string. We then verify the
@@ -22,6 +35,7 @@ class DownloadSizeFetcherTest {
   @DisplayName("Happy case, return content size downloaded")
   void returnContentSizeDownloaded() {
     final DownloadSizeFetcher downloadSizeFetcher = new DownloadSizeFetcher();
+    downloadSizeFetcher.setSizeProbe(uri -> OptionalLong.empty());
     final String contentsString = "this is a test";
     downloadSizeFetcher.setDownloadFunction(uri -> asInputStream(contentsString));
 
@@ -40,16 +54,105 @@ class DownloadSizeFetcherTest {
   }
 
   @Test
-  @DisplayName("Error case, error during download returns empty optional")
-  void returnEmptyOnErrorDownloading() {
+  @DisplayName("Error case, error during download is transient")
+  void throwTransientOnErrorDownloading() {
     final DownloadSizeFetcher downloadSizeFetcher = new DownloadSizeFetcher();
+    downloadSizeFetcher.setSizeProbe(uri -> OptionalLong.empty());
     downloadSizeFetcher.setDownloadFunction(
         uri -> {
           throw new IOException("test");
         });
 
-    final Optional<Long> result = downloadSizeFetcher.apply(URI.create("htttps://fake-uri"));
+    assertThrows(
+        TransientDownloadException.class,
+        () -> downloadSizeFetcher.apply(URI.create("htttps://fake-uri")));
+  }
+
+  @Test
+  @DisplayName("Error case, missing file returns empty optional")
+  void returnEmptyOnMissingFile(@WiremockResolver.Wiremock final WireMockServer server) {
+    server.stubFor(head(urlEqualTo("/map.zip")).willReturn(aResponse().withStatus(404)));
+    server.stubFor(get(urlEqualTo("/map.zip")).willReturn(aResponse().withStatus(404)));
+
+    final Optional<Long> result =
+        new DownloadSizeFetcher().apply(URI.create(server.baseUrl() + "/map.zip"));
 
     assertThat(result, isEmpty());
   }
+
+  @Test
+  @DisplayName("Error case, server error is transient")
+  void throwTransientOnServerError(@WiremockResolver.Wiremock final WireMockServer server) {
+    server.stubFor(head(urlEqualTo("/map.zip")).willReturn(aResponse().withStatus(503)));
+    server.stubFor(get(urlEqualTo("/map.zip")).willReturn(aResponse().withStatus(503)));
+
+    assertThrows(
+        TransientDownloadException.class,
+        () -> new DownloadSizeFetcher().apply(URI.create(server.baseUrl() + "/map.zip")));
+  }
+
+  @Test
+  @DisplayName("A size the server reports is used without downloading")
+  void reportedSizeSkipsDownload() {
+    final DownloadSizeFetcher downloadSizeFetcher = new DownloadSizeFetcher();
+    downloadSizeFetcher.setSizeProbe(uri -> OptionalLong.of(12345L));
+    downloadSizeFetcher.setDownloadFunction(
+        uri -> {
+          throw new AssertionError("should not download");
+        });
+
+    final Optional<Long> result = downloadSizeFetcher.apply(URI.create("htttps://fake-uri"));
+
+    assertThat(result, isPresentAndIs(12345L));
+  }
+
+  @Test
+  @DisplayName("Size probe reads Content-Length from a HEAD response")
+  void probeReadsHeadContentLength(@WiremockResolver.Wiremock final WireMockServer server)
+      throws IOException {
+    server.stubFor(
+        head(urlEqualTo("/map.zip"))
+            .willReturn(aResponse().withStatus(200).withHeader("Content-Length", "12345")));
+
+    assertThat(
+        DownloadSizeFetcher.probeSize(URI.create(server.baseUrl() + "/map.zip")),
+        is(OptionalLong.of(12345L)));
+  }
+
+  @Test
+  @DisplayName("Size probe reads the total from the Content-Range of a one-byte range request")
+  void probeReadsContentRangeTotal(@WiremockResolver.Wiremock final WireMockServer server)
+      throws IOException {
+    server.stubFor(head(urlEqualTo("/map.zip")).willReturn(aResponse().withStatus(405)));
+    server.stubFor(
+        get(urlEqualTo("/map.zip"))
+            .withHeader("Range", equalTo("bytes=0-0"))
+            .willReturn(
+                aResponse()
+                    .withStatus(206)
+                    .withHeader("Content-Range", "bytes 0-0/67890")
+                    .withBody("P")));
+
+    assertThat(
+        DownloadSizeFetcher.probeSize(URI.create(server.baseUrl() + "/map.zip")),
+        is(OptionalLong.of(67890L)));
+  }
+
+  @Test
+  @DisplayName("Size probe is empty when the server reports no size")
+  void probeEmptyWithoutReportedSize(@WiremockResolver.Wiremock final WireMockServer server)
+      throws IOException {
+    server.stubFor(head(urlEqualTo("/map.zip")).willReturn(aResponse().withStatus(405)));
+    server.stubFor(
+        get(urlEqualTo("/map.zip"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Transfer-Encoding", "chunked")
+                    .withBody("not a real zip")));
+
+    assertThat(
+        DownloadSizeFetcher.probeSize(URI.create(server.baseUrl() + "/map.zip")),
+        is(OptionalLong.empty()));
+  }
 }
@@ -0,0 +1,94 @@
+package org.triplea.services.maps.indexing.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.triplea.services.maps.indexing.tasks.MapArchiveReader.MapArchive;
+
+class MapArchiveReaderTest {
+  private static final URI ARCHIVE_URI =
+      URI.create("https://github.com/triplea-maps/test-map/archive/refs/heads/master.zip");
+
+  @Test
+  void readsRootFilesAndCountsTheWholeArchive() throws IOException {
+    byte[] zip =
+        zip(
+            Map.of(
+                "test-map-master/map.yml", "map_name: Test Map",
+                "test-map-master/description.html", "<b>A test</b>",
+                "test-map-master/games/map.yml", "map_name: Not This One",
+                "test-map-master/maps/test/baseTiles/0_0.png", "x".repeat(10_000)));
+    MapArchiveReader reader = new MapArchiveReader();
+    reader.setDownloadFunction(uri -> new ByteArrayInputStream(zip));
+
+    Optional<MapArchive> archive = reader.apply(ARCHIVE_URI);
+
+    assertThat(archive).contains(new MapArchive("map_name: Test Map", "<b>A test</b>", zip.length));
+  }
+
+  @Test
+  void missingFilesAreNull() throws IOException {
+    byte[] zip = zip(Map.of("test-map-master/README.md", "readme"));
+    MapArchiveReader reader = new MapArchiveReader();
+    reader.setDownloadFunction(uri -> new ByteArrayInputStream(zip));
+
+    assertThat(reader.apply(ARCHIVE_URI)).contains(new MapArchive(null, null, zip.length));
+  }
+
+  @Test
+  void downloadErrorIsTransient() {
+    MapArchiveReader reader = new MapArchiveReader();
+    reader.setDownloadFunction(
+        uri -> {
+          throw new IOException("test");
+        });
+
+    assertThatThrownBy(() -> reader.apply(ARCHIVE_URI))
+        .isInstanceOf(TransientDownloadException.class);
+  }
+
+  @Test
+  void missingArchiveIsEmpty() {
+    MapArchiveReader reader = new MapArchiveReader();
+    reader.setDownloadFunction(
+        uri -> {
+          throw new FileNotFoundException("Download failed with status 404");
+        });
+
+    assertThat(reader.apply(ARCHIVE_URI)).isEmpty();
+  }
+
+  @Test
+  void corruptArchiveIsEmpty() throws IOException {
+    byte[] zip = zip(Map.of("test-map-master/map.yml", "map_name: Test Map"));
+    // flips a bit in the compressed map.yml, after its 30-byte header and 23-byte name
+    zip[55] ^= 0x01;
+    MapArchiveReader reader = new MapArchiveReader();
+    reader.setDownloadFunction(uri -> new ByteArrayInputStream(zip));
+
+    assertThat(reader.apply(ARCHIVE_URI)).isEmpty();
+  }
+
+  private static byte[] zip(Map<String, String> files) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+      for (var file : files.entrySet()) {
+        zip.putNextEntry(new ZipEntry(file.getKey()));
+        zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    return bytes.toByteArray();
+  }
+}
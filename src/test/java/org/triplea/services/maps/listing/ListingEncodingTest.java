@@ -0,0 +1,44 @@
+package org.triplea.services.maps.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ListingEncodingTest {
+
+  private static final Set<ListingEncoding> ALL = EnumSet.allOf(ListingEncoding.class);
+
+  @ParameterizedTest
+  @CsvSource(
+      delimiter = '|',
+      nullValues = "NULL",
+      value = {
+        "NULL                      | IDENTITY",
+        "''                        | IDENTITY",
+        "gzip                      | GZIP",
+        "gzip, deflate, br         | BROTLI",
+        "GZIP;Q=0.5, br;q=0.4      | GZIP",
+        "br;q=0, gzip;q=0          | IDENTITY",
+        "*                         | BROTLI",
+        "*;q=0, gzip               | GZIP",
+        "identity;q=0, *;q=0       | IDENTITY",
+        "deflate                   | IDENTITY",
+        "br;q=bogus, gzip;q=0.1    | GZIP",
+      })
+  void negotiatesPreferredAcceptableEncoding(String acceptEncoding, ListingEncoding expected) {
+    assertThat(ListingEncoding.negotiate(acceptEncoding, ALL)).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"br", "'br, gzip;q=0.1'"})
+  void skipsEncodingsThatAreNotAvailable(String acceptEncoding) {
+    var withoutBrotli = EnumSet.of(ListingEncoding.GZIP, ListingEncoding.IDENTITY);
+
+    assertThat(ListingEncoding.negotiate(acceptEncoding, withoutBrotli))
+        .isEqualTo(
+            acceptEncoding.contains("gzip") ? ListingEncoding.GZIP : ListingEncoding.IDENTITY);
+  }
+}
@@ -0,0 +1,118 @@
+package org.triplea.services.maps.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.http.client.lobby.maps.listing.MapTag;
+import org.triplea.services.maps.attributes.AttributeValueRow;
+import org.triplea.services.maps.attributes.AttributeWithValues;
+
+class MapFacetIndexTest {
+
+  private static final List<AttributeWithValues> CATALOG =
+      List.of(
+          new AttributeWithValues(
+              1,
+              "era",
+              1,
+              List.of(
+                  new AttributeValueRow(10, 1, "ancient", 1),
+                  new AttributeValueRow(11, 1, "modern", 2),
+                  new AttributeValueRow(12, 1, "future", 3))),
+          new AttributeWithValues(
+              2,
+              "difficulty",
+              2,
+              List.of(
+                  new AttributeValueRow(20, 2, "easy", 1),
+                  new AttributeValueRow(21, 2, "hard", 2))));
+
+  private static final MapDownloadItem ROME = map("rome", "era:ancient", "difficulty:easy");
+  private static final MapDownloadItem SPARTA = map("sparta", "era:ancient", "difficulty:hard");
+  private static final MapDownloadItem WW2 = map("ww2", "era:modern", "difficulty:hard");
+  private static final MapDownloadItem UNTAGGED = map("untagged");
+
+  private final MapFacetIndex index =
+      MapFacetIndex.build(CATALOG, List.of(ROME, SPARTA, WW2, UNTAGGED));
+
+  private static MapDownloadItem map(String name, String... tags) {
+    return MapDownloadItem.builder()
+        .mapName(name)
+        .mapTags(
+            Arrays.stream(tags)
+                .map(tag -> tag.split(":"))
+                .map(pair -> MapTag.builder().name(pair[0]).value(pair[1]).build())
+                .toList())
+        .build();
+  }
+
+  @Test
+  void noFiltersReturnsEverythingWithCatalogOrderedFacets() {
+    var response = index.query(Map.of(), 0, 10);
+
+    assertThat(response.total()).isEqualTo(4);
+    assertThat(response.maps()).containsExactly(ROME, SPARTA, WW2, UNTAGGED);
+    assertThat(response.facets())
+        .containsExactly(
+            new MapListingQueryResponse.Facet(
+                "era",
+                List.of(
+                    new MapListingQueryResponse.FacetValue("ancient", 2, false),
+                    new MapListingQueryResponse.FacetValue("modern", 1, false),
+                    new MapListingQueryResponse.FacetValue("future", 0, false))),
+            new MapListingQueryResponse.Facet(
+                "difficulty",
+                List.of(
+                    new MapListingQueryResponse.FacetValue("easy", 1, false),
+                    new MapListingQueryResponse.FacetValue("hard", 2, false))));
+  }
+
+  @Test
+  void valuesOfOneAttributeAreOredAndAttributesAnded() {
+    var response =
+        index.query(
+            Map.of("era", Set.of("ancient", "modern"), "difficulty", Set.of("hard")), 0, 10);
+
+    assertThat(response.maps()).containsExactly(SPARTA, WW2);
+  }
+
+  @Test
+  void facetCountsIgnoreTheirOwnAttributesSelection() {
+    var response = index.query(Map.of("era", Set.of("ancient")), 0, 10);
+
+    assertThat(response.maps()).containsExactly(ROME, SPARTA);
+    // era counts are over all maps (its own selection is not applied) ...
+    assertThat(response.facets().get(0).values())
+        .containsExactly(
+            new MapListingQueryResponse.FacetValue("ancient", 2, true),
+            new MapListingQueryResponse.FacetValue("modern", 1, false),
+            new MapListingQueryResponse.FacetValue("future", 0, false));
+    // ... while difficulty counts are over the ancient maps only.
+    assertThat(response.facets().get(1).values())
+        .containsExactly(
+            new MapListingQueryResponse.FacetValue("easy", 1, false),
+            new MapListingQueryResponse.FacetValue("hard", 1, false));
+  }
+
+  @Test
+  void pagesThroughMatchesInListingOrder() {
+    var response = index.query(Map.of(), 1, 2);
+
+    assertThat(response.total()).isEqualTo(4);
+    assertThat(response.offset()).isEqualTo(1);
+    assertThat(response.maps()).containsExactly(SPARTA, WW2);
+  }
+
+  @Test
+  void unknownValueMatchesNothing() {
+    var response = index.query(Map.of("era", Set.of("stone-age")), 0, 10);
+
+    assertThat(response.total()).isZero();
+    assertThat(response.maps()).isEmpty();
+  }
+}
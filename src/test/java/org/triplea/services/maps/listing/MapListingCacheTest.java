@@ -0,0 +1,241 @@
+package org.triplea.services.maps.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MapListingCacheTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final LongFunction<MapListingSnapshot> loader =
+      generation -> {
+        loads.incrementAndGet();
+        return new MapListingSnapshot(
+            generation,
+            0,
+            List.of(),
+            Map.of(),
+            Instant.EPOCH,
+            MapFacetIndex.build(List.of(), List.of()));
+      };
+
+  private final MapListingCache cache = new MapListingCache(loader);
+
+  @Test
+  void repeatedReadsShareOneSnapshot() {
+    var first = cache.get();
+    var second = cache.get();
+
+    assertThat(second).isSameAs(first);
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void invalidateCausesExactlyOneRebuild() {
+    var first = cache.get();
+
+    cache.invalidate();
+    var second = cache.get();
+    var third = cache.get();
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.generation()).isGreaterThan(first.generation());
+    assertThat(third).isSameAs(second);
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void concurrentColdReadsShareOneLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    var slowCache =
+        new MapListingCache(
+            generation -> {
+              loading.countDown();
+              awaitQuietly(release);
+              return loader.apply(generation);
+            });
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<MapListingSnapshot>> reads = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        reads.add(callers.submit(slowCache::get));
+      }
+      assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+      release.countDown();
+
+      var first = reads.get(0).get(10, TimeUnit.SECONDS);
+      for (var read : reads) {
+        assertThat(read.get(10, TimeUnit.SECONDS)).isSameAs(first);
+      }
+      assertThat(loads).hasValue(1);
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  @Test
+  void staleSnapshotIsServedWhileItRebuildsInTheBackground() {
+    List<Runnable> background = new ArrayList<>();
+    var swrCache = new MapListingCache(loader, Duration.ofHours(1), background::add, null);
+    var first = swrCache.get();
+
+    swrCache.invalidate();
+
+    assertThat(swrCache.get()).isSameAs(first);
+    assertThat(swrCache.get()).isSameAs(first);
+    assertThat(background).hasSize(1);
+
+    background.get(0).run();
+
+    assertThat(swrCache.get().generation()).isGreaterThan(first.generation());
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void coldStartWaitsEvenWhenStalenessIsAllowed() {
+    List<Runnable> background = new ArrayList<>();
+    var swrCache = new MapListingCache(loader, Duration.ofHours(1), background::add, null);
+
+    assertThat(swrCache.get()).isNotNull();
+    assertThat(background).isEmpty();
+  }
+
+  @Test
+  void failedRebuildIsRethrownAndRetried() {
+    AtomicInteger attempts = new AtomicInteger();
+    var flakyCache =
+        new MapListingCache(
+            generation -> {
+              if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("database unavailable");
+              }
+              return loader.apply(generation);
+            });
+
+    assertThatThrownBy(flakyCache::get).isInstanceOf(IllegalStateException.class);
+    assertThat(flakyCache.get()).isNotNull();
+  }
+
+  @Test
+  void failedRebuildServesTheStaleSnapshot() {
+    AtomicInteger attempts = new AtomicInteger();
+    var outageCache =
+        new MapListingCache(
+            generation -> {
+              if (attempts.incrementAndGet() > 1) {
+                throw new IllegalStateException("database unavailable");
+              }
+              return loader.apply(generation);
+            });
+    var first = outageCache.get();
+
+    outageCache.invalidate();
+
+    assertThat(outageCache.get()).isSameAs(first);
+    // served straight away, without another attempt until the retry delay has passed
+    assertThat(outageCache.get()).isSameAs(first);
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  void failedRebuildIsRetriedInTheBackgroundAfterTheRetryDelay() {
+    AtomicInteger attempts = new AtomicInteger();
+    List<Runnable> background = new ArrayList<>();
+    var outageCache =
+        new MapListingCache(
+            generation -> {
+              if (attempts.incrementAndGet() == 2) {
+                throw new IllegalStateException("database unavailable");
+              }
+              return loader.apply(generation);
+            },
+            Duration.ZERO,
+            background::add,
+            null,
+            Duration.ZERO);
+    var first = outageCache.get();
+    outageCache.invalidate();
+    assertThat(outageCache.get()).isSameAs(first);
+
+    assertThat(outageCache.get()).isSameAs(first);
+    assertThat(background).hasSize(1);
+    background.get(0).run();
+
+    assertThat(outageCache.get()).isNotSameAs(first);
+    assertThat(attempts).hasValue(3);
+  }
+
+  @Test
+  void coldStartDuringAnOutageServesTheSavedSnapshot(@TempDir Path directory) {
+    var store = new MapListingSnapshotStore(directory, new ObjectMapper());
+    byte[] json = "{\"maps\":[]}".getBytes(StandardCharsets.UTF_8);
+    var saving =
+        new MapListingCache(
+            generation ->
+                new MapListingSnapshot(
+                    generation,
+                    0,
+                    List.of(),
+                    Map.of(ListingEncoding.IDENTITY, new EncodedListing(json, "tag")),
+                    Instant.EPOCH,
+                    MapFacetIndex.build(List.of(), List.of())),
+            Duration.ZERO,
+            Runnable::run,
+            store);
+    saving.get();
+
+    var restarted =
+        new MapListingCache(
+            generation -> {
+              throw new IllegalStateException("database unavailable");
+            },
+            Duration.ZERO,
+            Runnable::run,
+            store);
+
+    var served = restarted.get();
+    assertThat(served.generation()).isEqualTo(-1);
+    assertThat(served.identity().body()).isEqualTo(json);
+  }
+
+  @Test
+  void coldStartDuringAnOutageWithNothingSavedFails(@TempDir Path directory) {
+    var restarted =
+        new MapListingCache(
+            generation -> {
+              throw new IllegalStateException("database unavailable");
+            },
+            Duration.ZERO,
+            Runnable::run,
+            new MapListingSnapshotStore(directory, new ObjectMapper()));
+
+    assertThatThrownBy(restarted::get).isInstanceOf(IllegalStateException.class);
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
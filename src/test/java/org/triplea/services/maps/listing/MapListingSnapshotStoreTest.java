@@ -0,0 +1,77 @@
+package org.triplea.services.maps.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.http.client.lobby.maps.listing.MapListingResponse;
+import org.triplea.http.client.lobby.maps.listing.MapTag;
+
+class MapListingSnapshotStoreTest {
+
+  private static final MapDownloadItem MAP =
+      MapDownloadItem.builder()
+          .mapName("map-name")
+          .downloadUrl("http-map-repo-url/archives/master.zip")
+          .previewImageUrl("http-preview-image-url")
+          .description("<p>description</p>")
+          .lastCommitDateEpochMilli(1000L)
+          .downloadSizeInBytes(4000L)
+          .mapTags(List.of(MapTag.builder().name("era").value("ancient").build()))
+          .build();
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir Path directory;
+
+  @Test
+  void savedSnapshotLoadsBackAsAStaleCopy() throws IOException {
+    byte[] json =
+        objectMapper.writeValueAsBytes(MapListingResponse.builder().maps(List.of(MAP)).build());
+    var store = new MapListingSnapshotStore(directory, objectMapper);
+
+    store.save(
+        new MapListingSnapshot(
+            3,
+            42,
+            List.of(MAP),
+            Map.of(
+                ListingEncoding.IDENTITY,
+                new EncodedListing(json, "tag"),
+                ListingEncoding.GZIP,
+                new EncodedListing(MapsListingModule.gzip(json), "tag-gzip")),
+            Instant.parse("2024-03-01T10:15:30Z"),
+            MapFacetIndex.build(List.of(), List.of(MAP))));
+    var loaded = store.load().orElseThrow();
+
+    assertThat(loaded.generation()).isEqualTo(-1);
+    assertThat(loaded.listingVersion()).isEqualTo(42);
+    assertThat(loaded.lastModified()).isEqualTo(Instant.parse("2024-03-01T10:15:30Z"));
+    assertThat(loaded.identity().body()).isEqualTo(json);
+    assertThat(loaded.encodings().get(ListingEncoding.GZIP).etag()).isEqualTo("tag-gzip");
+    assertThat(loaded.maps()).containsExactly(MAP);
+    assertThat(loaded.facets().query(Map.of(), 0, 10).total()).isEqualTo(1);
+  }
+
+  @Test
+  void nothingLoadsWithoutASavedSnapshot() {
+    assertThat(new MapListingSnapshotStore(directory, objectMapper).load()).isEmpty();
+  }
+
+  @Test
+  void aCorruptFileIsIgnored() throws IOException {
+    Files.writeString(
+        directory.resolve(MapListingSnapshotStore.FILE_NAME), "garbage", StandardCharsets.UTF_8);
+
+    assertThat(new MapListingSnapshotStore(directory, objectMapper).load()).isEmpty();
+  }
+}
@@ -0,0 +1,94 @@
+package org.triplea.services.maps.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.triplea.http.client.lobby.maps.listing.MapDownloadItem;
+import org.triplea.services.maps.attributes.MapAttributeDao;
+
+@ExtendWith(MockitoExtension.class)
+class MapsListingModuleTest {
+
+  private static final MapDownloadItem MAP =
+      MapDownloadItem.builder()
+          .mapName("map-name")
+          .downloadUrl("http-map-repo-url/archives/master.zip")
+          .lastCommitDateEpochMilli(1000L)
+          .mapTags(List.of())
+          .build();
+
+  @Mock private MapListingDao mapListingDao;
+  @Mock private MapAttributeDao mapAttributeDao;
+
+  private MapsListingModule mapsListingModule;
+
+  @BeforeEach
+  void setUp() {
+    mapsListingModule = new MapsListingModule(mapListingDao, mapAttributeDao, new ObjectMapper());
+  }
+
+  @Test
+  void snapshotCarriesSerializedBodyAndValidators() {
+    when(mapListingDao.fetchListingVersion()).thenReturn(42L);
+    when(mapListingDao.fetchMapListings()).thenReturn(List.of(MAP));
+    when(mapListingDao.fetchLastModified())
+        .thenReturn(Optional.of(Instant.parse("2024-03-01T10:15:30.123456Z")));
+
+    MapListingSnapshot snapshot = mapsListingModule.apply(7);
+
+    assertThat(snapshot.generation()).isEqualTo(7);
+    assertThat(snapshot.listingVersion()).isEqualTo(42);
+    assertThat(snapshot.maps()).containsExactly(MAP);
+    byte[] json = snapshot.identity().body();
+    assertThat(new String(json, StandardCharsets.UTF_8)).contains("\"mapName\":\"map-name\"");
+    assertThat(snapshot.identity().etag()).isEqualTo(MapsListingModule.etag(json));
+    assertThat(snapshot.lastModified()).isEqualTo(Instant.parse("2024-03-01T10:15:30Z"));
+  }
+
+  @Test
+  void etagChangesWithContent() {
+    when(mapListingDao.fetchLastModified()).thenReturn(Optional.empty());
+    when(mapListingDao.fetchMapListings()).thenReturn(List.of(MAP), List.of());
+
+    MapListingSnapshot withMap = mapsListingModule.apply(1);
+    MapListingSnapshot empty = mapsListingModule.apply(2);
+
+    assertThat(empty.identity().etag()).isNotEqualTo(withMap.identity().etag());
+    assertThat(empty.lastModified()).isEqualTo(Instant.EPOCH);
+  }
+
+  @Test
+  void compressedEncodingsDecodeToTheIdentityBody() throws IOException {
+    when(mapListingDao.fetchLastModified()).thenReturn(Optional.empty());
+    when(mapListingDao.fetchMapListings()).thenReturn(List.of(MAP));
+
+    MapListingSnapshot snapshot = mapsListingModule.apply(1);
+    byte[] json = snapshot.identity().body();
+
+    EncodedListing gzip = snapshot.encodings().get(ListingEncoding.GZIP);
+    try (var in = new GZIPInputStream(new ByteArrayInputStream(gzip.body()))) {
+      assertThat(in.readAllBytes()).isEqualTo(json);
+    }
+    assertThat(gzip.etag()).isEqualTo(snapshot.identity().etag() + "-gzip");
+
+    EncodedListing brotli = snapshot.encodings().get(ListingEncoding.BROTLI);
+    if (brotli != null) {
+      assertThat(Decoder.decompress(brotli.body()).getDecompressedData()).isEqualTo(json);
+      assertThat(brotli.etag()).isEqualTo(snapshot.identity().etag() + "-br");
+    }
+  }
+}
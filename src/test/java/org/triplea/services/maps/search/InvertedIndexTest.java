@@ -0,0 +1,80 @@
+package org.triplea.services.maps.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InvertedIndexTest {
+
+  private final InvertedIndex index = new InvertedIndex();
+
+  @BeforeEach
+  void setUp() {
+    index.put(document(1, "World War II v5", "<p>The classic <i>global</i> war, 1941.</p>", true));
+    index.put(document(2, "Napoleonic Empires", "Europe during the wars of Napoleon.", true));
+    index.put(document(3, "Warcraft Heroes", "Fantasy heroes and orcs.", false));
+  }
+
+  private static MapSearchDocument document(
+      long id, String name, String description, boolean listed) {
+    return new MapSearchDocument(id, name, description, "http-url-" + id, listed, id);
+  }
+
+  private static long[] ids(List<MapSearchHit> hits) {
+    return hits.stream().mapToLong(MapSearchHit::id).toArray();
+  }
+
+  @Test
+  void nameMatchesOutrankDescriptionMatches() {
+    assertThat(ids(index.search("war", 10, false))).startsWith(1);
+  }
+
+  @Test
+  void prefixMatchesSupportSearchAsYouType() {
+    assertThat(ids(index.search("napo", 10, false))).containsExactly(2);
+    assertThat(ids(index.search("warc", 10, false))).startsWith(3);
+  }
+
+  @Test
+  void toleratesTypos() {
+    assertThat(ids(index.search("napoleom", 10, false))).containsExactly(2);
+    assertThat(ids(index.search("europa", 10, false))).containsExactly(2);
+  }
+
+  @Test
+  void everyQueryTermMustMatch() {
+    assertThat(ids(index.search("world classic", 10, false))).containsExactly(1);
+    assertThat(ids(index.search("world orcs", 10, false))).isEmpty();
+  }
+
+  @Test
+  void htmlMarkupIsNotSearchable() {
+    assertThat(index.search("p", 10, false)).isEmpty();
+    assertThat(ids(index.search("global", 10, false))).containsExactly(1);
+  }
+
+  @Test
+  void listedOnlyHidesUnlistedMaps() {
+    assertThat(ids(index.search("heroes", 10, false))).containsExactly(3);
+    assertThat(index.search("heroes", 10, true)).isEmpty();
+  }
+
+  @Test
+  void putReplacesAndRemoveForgetsTerms() {
+    index.put(document(2, "Napoleonic Empires", "Now about Russia.", true));
+
+    assertThat(index.search("europe", 10, false)).isEmpty();
+    assertThat(ids(index.search("russia", 10, false))).containsExactly(2);
+
+    index.remove(2);
+    assertThat(index.search("russia", 10, false)).isEmpty();
+    assertThat(index.size()).isEqualTo(2);
+  }
+
+  @Test
+  void limitsResults() {
+    assertThat(index.search("w", 1, false)).hasSize(1);
+  }
+}
@@ -0,0 +1,44 @@
+package org.triplea.services.maps.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class MapSearchIndexTest {
+
+  private final AtomicLong generation = new AtomicLong();
+  private final List<Long> requestedSince = new ArrayList<>();
+  private List<MapSearchDocument> nextChanges =
+      List.of(new MapSearchDocument(1, "Big World", "", "http-1", true, 5));
+
+  private final MapSearchIndex mapSearchIndex =
+      new MapSearchIndex(
+          generation::get,
+          since -> {
+            requestedSince.add(since);
+            return nextChanges;
+          });
+
+  @Test
+  void syncsOnlyWhenTheGenerationMoves() {
+    assertThat(mapSearchIndex.search("world", 10, false)).hasSize(1);
+    assertThat(mapSearchIndex.search("big", 10, false)).hasSize(1);
+
+    assertThat(requestedSince).containsExactly(0L);
+  }
+
+  @Test
+  void appliesOnlyRowsChangedSinceTheLastSync() {
+    mapSearchIndex.search("world", 10, false);
+
+    nextChanges = List.of(new MapSearchDocument(1, "Small World", "", "http-1", true, 9));
+    generation.incrementAndGet();
+
+    assertThat(mapSearchIndex.search("small", 10, false)).hasSize(1);
+    assertThat(mapSearchIndex.search("big", 10, false)).isEmpty();
+    assertThat(requestedSince).containsExactly(0L, 5L);
+  }
+}
@@ -0,0 +1,28 @@
+package org.triplea.services.maps.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SearchTextTest {
+
+  @Test
+  void stripsHtmlFoldsAccentsAndLowerCases() {
+    assertThat(
+            SearchText.indexTerms(
+                "<p>Le <b>Grand</b>&nbsp;Empire Français</p><br/>A map of 1805 Europe."))
+        .containsExactly("le", "grand", "empire", "francais", "map", "of", "1805", "europe");
+  }
+
+  @Test
+  void queryTermsKeepSingleCharacters() {
+    assertThat(SearchText.queryTerms("w")).containsExactly("w");
+    assertThat(SearchText.indexTerms("w")).isEmpty();
+  }
+
+  @Test
+  void trigramsArePaddedAtWordBoundaries() {
+    assertThat(SearchText.trigrams("war")).containsExactly("$wa", "war", "ar$");
+    assertThat(SearchText.trigrams("ab")).containsExactly("$ab", "ab$");
+  }
+}
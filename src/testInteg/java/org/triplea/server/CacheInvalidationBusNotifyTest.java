@@ -0,0 +1,58 @@
+package org.triplea.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.quarkus.test.junit.QuarkusTest;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+class CacheInvalidationBusNotifyTest {
+
+  private final Jdbi jdbi;
+  private final CacheInvalidationBus bus;
+
+  CacheInvalidationBusNotifyTest(final Jdbi jdbi, final CacheInvalidationBus bus) {
+    this.jdbi = jdbi;
+    this.bus = bus;
+  }
+
+  @Test
+  void notificationsFromOtherNodesReachSubscribers() {
+    AtomicInteger invalidations = new AtomicInteger();
+    bus.subscribe("from_other_node", invalidations::incrementAndGet);
+
+    notifyAsOtherNode("from_other_node");
+
+    await().atMost(Duration.ofSeconds(10)).until(() -> invalidations.get() == 1);
+  }
+
+  @Test
+  void aNodeDoesNotReceiveItsOwnNotifications() {
+    AtomicInteger own = new AtomicInteger();
+    AtomicInteger marker = new AtomicInteger();
+    bus.subscribe("own_topic", own::incrementAndGet);
+    bus.subscribe("marker_topic", marker::incrementAndGet);
+
+    bus.publish("own_topic");
+    notifyAsOtherNode("marker_topic");
+
+    // Notifications arrive in commit order, so once the marker is in, our own has been handled.
+    await().atMost(Duration.ofSeconds(10)).until(() -> marker.get() == 1);
+    assertThat(own).hasValue(0);
+  }
+
+  private void notifyAsOtherNode(String topic) {
+    jdbi.useHandle(
+        handle ->
+            handle
+                .createQuery("select pg_notify(:channel, :payload)")
+                .bind("channel", CacheInvalidationBus.CHANNEL)
+                .bind("payload", "other-node:" + topic)
+                .mapTo(String.class)
+                .one());
+  }
+}
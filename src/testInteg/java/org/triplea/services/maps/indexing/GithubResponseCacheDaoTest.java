@@ -0,0 +1,36 @@
+package org.triplea.services.maps.indexing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.triplea.DbOnlyExtension;
+import org.triplea.http.client.github.GithubResponseCache.CachedResponse;
+
+@QuarkusTest
+@ExtendWith(DbOnlyExtension.class)
+class GithubResponseCacheDaoTest {
+
+  private final GithubResponseCacheDao cacheDao;
+
+  GithubResponseCacheDaoTest(Jdbi jdbi) {
+    cacheDao = new GithubResponseCacheDao(jdbi);
+  }
+
+  @Test
+  void missingPathIsEmpty() {
+    assertThat(cacheDao.get("/repos/example-org/never-cached")).isEmpty();
+  }
+
+  @Test
+  void putOverwritesPreviousResponse() {
+    String path = "/orgs/example-org/repos?per_page=100&page=1";
+    cacheDao.put(path, new CachedResponse("\"v1\"", null, "[1]"));
+    cacheDao.put(path, new CachedResponse("\"v2\"", "Tue, 01 Sep 2026 10:00:00 GMT", "[2]"));
+
+    assertThat(cacheDao.get(path))
+        .contains(new CachedResponse("\"v2\"", "Tue, 01 Sep 2026 10:00:00 GMT", "[2]"));
+  }
+}
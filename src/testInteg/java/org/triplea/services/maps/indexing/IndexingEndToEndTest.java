@@ -3,6 +3,7 @@ package org.triplea.services.maps.indexing;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.quarkus.test.junit.QuarkusTest;
+import java.time.Duration;
 import lombok.AllArgsConstructor;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.Test;
@@ -28,9 +29,19 @@ public class IndexingEndToEndTest {
   @Test
   void verifyIndexing() {
     var githubClient = GithubClient.build("", "triplea-maps");
-    MapIndexDao dao = new MapIndexDao(jdbi);
     MapIndexingTaskRunner taskRunner =
-        new MapIndexingTaskRunner(dao, githubClient, MapIndexer.build(githubClient));
+        MapIndexingTaskRunner.builder()
+            .mapIndexDao(new MapIndexDao(jdbi))
+            .jobDao(new MapIndexingJobDao(jdbi))
+            .githubClient(githubClient)
+            .mapIndexer(MapIndexer.build(true))
+            .listingChangeListener(() -> {})
+            .parallelism(4)
+            .batchSize(2)
+            .workerId("test-node")
+            .leaseDuration(Duration.ofMinutes(1))
+            .minRunInterval(Duration.ZERO)
+            .build();
 
     assertThat(testMapExistsInDatabase()).isFalse();
 
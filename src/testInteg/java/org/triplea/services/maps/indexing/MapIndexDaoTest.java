@@ -2,20 +2,26 @@ package org.triplea.services.maps.indexing;
 
 import static com.github.npathai.hamcrestopt.OptionalMatchers.isPresentAndIs;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.core.api.dataset.ExpectedDataSet;
 import com.github.database.rider.junit5.DBUnitExtension;
 import com.github.npathai.hamcrestopt.OptionalMatchers;
 import io.quarkus.test.junit.QuarkusTest;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.triplea.DbOnlyExtension;
 import org.triplea.TestData;
+import org.triplea.http.client.github.MapRepoListing;
+import org.triplea.services.maps.indexing.MapIndexingTaskRunner.IndexingResult.ResultCode;
 
 @DataSet(value = "map_index.yml", useSequenceFiltering = false)
 @QuarkusTest
@@ -23,16 +29,19 @@ import org.triplea.TestData;
 @ExtendWith(DBUnitExtension.class)
 class MapIndexDaoTest {
 
+  private final Jdbi jdbi;
   private final MapIndexDao mapIndexDao;
 
   MapIndexDaoTest(Jdbi jdbi) {
+    this.jdbi = jdbi;
     mapIndexDao = new MapIndexDao(jdbi);
   }
 
   @Test
   @ExpectedDataSet(value = "expected/map_index_upsert_updated.yml", orderBy = "id")
-  void upsertUpdatesRecords() {
-    mapIndexDao.upsert(
+  void recordResultsUpdatesIndexedMap() {
+    recordResult(
+        ResultCode.SUCCESSFULLY_INDEXED,
         TestData.mapIndex.toBuilder()
             .mapName("map-name-updated")
             .mapDownloadSizeInBytes(8000L)
@@ -44,56 +53,149 @@ class MapIndexDaoTest {
   void disableMapsNotInDisablesMissingMaps() {
     // the seeded map's repo is not in the list, so the row is disabled (flagged 'DELETED')
     // rather than deleted from the table.
-    mapIndexDao.disableMapsNotIn(List.of("http-some-other-repo"));
+    assertThat(
+        mapIndexDao.disableMapsNotIn(List.of("http-some-other-repo")),
+        contains("http-map-repo-url"));
+  }
+
+  @Test
+  void disableMapsNotInKeepsListedMaps() {
+    assertThat(
+        mapIndexDao.disableMapsNotIn(List.of("http-some-other-repo", "http-map-repo-url")),
+        is(List.of()));
   }
 
   @Test
   @DataSet(value = "map_index_disabled.yml", useSequenceFiltering = false)
   @ExpectedDataSet("expected/map_index_reenabled.yml")
-  void upsertReenablesDisabledMap() {
-    // upserting a previously-disabled map (e.g. a 'DELETED' repo that came back) re-enables it
+  void recordResultsReenablesDisabledMap() {
+    // indexing a previously-disabled map (e.g. a 'DELETED' repo that came back) re-enables it
     // and clears the disable reason; the CHECK constraint guarantees the cleared reason is null.
-    mapIndexDao.upsert(TestData.mapIndex);
+    recordResult(ResultCode.SUCCESSFULLY_INDEXED, TestData.mapIndex);
   }
 
   @Test
   @ExpectedDataSet("expected/map_index_post_disable_error.yml")
-  void upsertDisabledDisablesExistingMapAndKeepsItsMetadata() {
+  void recordResultsDisablesExistingMapAndKeepsItsMetadataOnRepoError() {
     // an indexing error on an already-indexed map disables it with the error reason, but the
     // existing data columns (e.g. map_name) are preserved rather than overwritten with fallbacks.
-    mapIndexDao.upsertDisabled(
+    recordResult(
+        ResultCode.REPO_ERROR,
         TestData.mapIndex.toBuilder().mapName("map-name-updated").build(),
         "could not read map.yml");
   }
 
   @Test
   @ExpectedDataSet("expected/map_indexing_status_error.yml")
-  void recordIndexingStatusRecordsError() {
-    mapIndexDao.recordIndexingStatus(
-        TestData.mapRepoListing,
-        new MapIndexingTaskRunner.IndexingResult(
-            MapIndexingTaskRunner.IndexingResult.ResultCode.REPO_ERROR,
-            List.of("could not read map.yml")));
+  void recordResultsRecordsErrorStatus() {
+    recordResult(ResultCode.REPO_ERROR, TestData.mapIndex, "could not read map.yml");
   }
 
   @Test
   @ExpectedDataSet("expected/map_indexing_status_success.yml")
-  void recordIndexingStatusRecordsSuccess() {
-    mapIndexDao.recordIndexingStatus(
-        TestData.mapRepoListing,
-        new MapIndexingTaskRunner.IndexingResult(
-            MapIndexingTaskRunner.IndexingResult.ResultCode.SUCCESSFULLY_INDEXED, List.of()));
+  void recordResultsRecordsSuccessStatus() {
+    recordResult(ResultCode.SUCCESSFULLY_INDEXED, TestData.mapIndex);
+  }
+
+  @Test
+  void recordResultsWritesEveryOutcomeOfTheBatch() {
+    MapIndex newMap =
+        TestData.mapIndex.toBuilder()
+            .mapName("new-map")
+            .mapRepoUri("http-new-repo-url")
+            .downloadUri("http-new-repo-url/archives/master.zip")
+            .build();
+    MapRepoListing newRepo =
+        MapRepoListing.builder().uri(newMap.getMapRepoUri()).defaultBranch("master").build();
+    MapRepoListing unchangedRepo =
+        MapRepoListing.builder().uri("http-unchanged-repo-url").defaultBranch("master").build();
+
+    mapIndexDao.recordResults(
+        List.of(
+            new MapIndexingTaskRunner.IndexedRepo(
+                newRepo,
+                new MapIndexingTaskRunner.IndexingResult(
+                    MapIndexingTaskRunner.IndexingResult.ResultCode.SUCCESSFULLY_INDEXED,
+                    List.of()),
+                newMap),
+            new MapIndexingTaskRunner.IndexedRepo(
+                TestData.mapRepoListing,
+                new MapIndexingTaskRunner.IndexingResult(
+                    MapIndexingTaskRunner.IndexingResult.ResultCode.REPO_ERROR,
+                    List.of("could not read map.yml")),
+                TestData.mapIndex),
+            MapIndexingTaskRunner.IndexedRepo.upToDate(unchangedRepo, false)));
+
+    assertThat(
+        queryStrings(
+            "select repo_url || ' ' || enabled || ' ' || coalesce(disable_reason, '-')"
+                + " from map_index order by repo_url"),
+        contains("http-map-repo-url false could not read map.yml", "http-new-repo-url true -"));
+    assertThat(
+        queryStrings(
+            "select repo_url || ' ' || result_code from map_indexing_status order by repo_url"),
+        contains(
+            "http-map-repo-url REPO_ERROR",
+            "http-new-repo-url SUCCESSFULLY_INDEXED",
+            "http-unchanged-repo-url INDEXING_IS_UP_TO_DATE"));
+  }
+
+  @Test
+  void loadIndexedStatesReadsEveryMap() {
+    Instant lastCommitDate = LocalDateTime.of(2000, 12, 1, 23, 59, 20).toInstant(ZoneOffset.UTC);
+    assertThat(
+        mapIndexDao.loadIndexedStates(),
+        is(
+            Map.of(
+                "http-map-repo-url",
+                new MapIndexDao.IndexedState(lastCommitDate, null, "master"))));
+
+    MapRepoListing pushed =
+        TestData.mapRepoListing.toBuilder().pushedAt("2001-01-01T00:00:00Z").build();
+    mapIndexDao.recordResults(List.of(MapIndexingTaskRunner.IndexedRepo.upToDate(pushed, false)));
+
+    assertThat(
+        mapIndexDao.findIndexedState("http-map-repo-url"),
+        isPresentAndIs(
+            new MapIndexDao.IndexedState(lastCommitDate, pushed.getPushedAt(), "master")));
+    assertThat(mapIndexDao.findIndexedState("http://map-repo-url-DNE"), OptionalMatchers.isEmpty());
   }
 
   @Test
-  void getLastCommitDate() {
+  void recordRetryKeepsTheMapAndTheLastSuccess() {
+    recordResult(ResultCode.SUCCESSFULLY_INDEXED, TestData.mapIndex);
+
+    mapIndexDao.recordRetry(
+        TestData.mapRepoListing, "timed out", Instant.parse("2030-01-01T00:00:00Z"));
+
+    assertThat(
+        queryStrings(
+            "select result_code || ' ' || error_message || ' ' || (last_success is not null)"
+                + " || ' ' || (next_retry_at = '2030-01-01T00:00:00Z')"
+                + " from map_indexing_status"),
+        contains("TEMPORARY_ERROR timed out true true"));
     assertThat(
-        mapIndexDao.getLastCommitDate(TestData.mapIndex.getMapRepoUri()),
-        isPresentAndIs(LocalDateTime.of(2000, 12, 1, 23, 59, 20).toInstant(ZoneOffset.UTC)));
+        queryStrings("select enabled::text from map_index where repo_url = 'http-map-repo-url'"),
+        contains("true"));
+
+    recordResult(ResultCode.SUCCESSFULLY_INDEXED, TestData.mapIndex);
 
     assertThat(
-        "Map repo URL does not exist",
-        mapIndexDao.getLastCommitDate("http://map-repo-url-DNE"),
-        OptionalMatchers.isEmpty());
+        queryStrings("select (next_retry_at is null)::text from map_indexing_status"),
+        contains("true"));
+  }
+
+  /// Records one indexing outcome of the seeded map's repo.
+  private void recordResult(ResultCode resultCode, MapIndex mapIndex, String... errors) {
+    mapIndexDao.recordResults(
+        List.of(
+            new MapIndexingTaskRunner.IndexedRepo(
+                TestData.mapRepoListing,
+                new MapIndexingTaskRunner.IndexingResult(resultCode, List.of(errors)),
+                mapIndex)));
+  }
+
+  private List<String> queryStrings(String query) {
+    return jdbi.withHandle(handle -> handle.createQuery(query).mapTo(String.class).list());
   }
 }
@@ -3,6 +3,7 @@ package org.triplea.services.maps.indexing;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.quarkus.test.junit.QuarkusTest;
+import java.time.Instant;
 import org.junit.jupiter.api.Test;
 import org.triplea.http.client.github.GithubClient;
 import org.triplea.http.client.github.MapRepoListing;
@@ -13,18 +14,21 @@ public class MapIndexingIntegrationTest {
 
   @Test
   void runIndexingOnTestMap() {
-    final MapIndexer mapIndexerRunner = MapIndexer.build(GithubClient.build("", "triplea-maps"));
+    final Instant lastCommitDate =
+        GithubClient.build("", "triplea-maps").getLatestCommitDate("test-map", "master");
 
     final MapIndex result =
-        mapIndexerRunner.apply(
-            MapRepoListing.builder()
-                .uri("https://github.com/triplea-maps/test-map")
-                .defaultBranch("master")
-                .build());
+        MapIndexer.build(true)
+            .apply(
+                MapRepoListing.builder()
+                    .uri("https://github.com/triplea-maps/test-map")
+                    .defaultBranch("master")
+                    .build(),
+                lastCommitDate);
 
     assertThat(result.getMapRepoUri()).isEqualTo("https://github.com/triplea-maps/test-map");
     assertThat(result.getMapName()).isEqualTo("Test Map");
-    assertThat(result.getLastCommitDate()).isNotNull();
+    assertThat(result.getLastCommitDate()).isEqualTo(lastCommitDate);
     assertThat(result.getDescription()).contains("<br><b><em>by test</em></b>");
     assertThat(result.getDefaultBranch()).isEqualTo("master");
     assertThat(result.getDownloadUri())
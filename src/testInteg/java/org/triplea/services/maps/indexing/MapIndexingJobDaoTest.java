@@ -0,0 +1,162 @@
+package org.triplea.services.maps.indexing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.quarkus.test.junit.QuarkusTest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.triplea.DbOnlyExtension;
+import org.triplea.http.client.github.MapRepoListing;
+
+@QuarkusTest
+@ExtendWith(DbOnlyExtension.class)
+class MapIndexingJobDaoTest {
+  private static final MapRepoListing FIRST_REPO =
+      MapRepoListing.builder()
+          .uri("https://github.com/example-org/first-map")
+          .defaultBranch("main")
+          .pushedAt("2026-09-01T10:00:00Z")
+          .updatedAt("2026-08-01T10:00:00Z")
+          .build();
+  private static final MapRepoListing SECOND_REPO =
+      MapRepoListing.builder()
+          .uri("https://github.com/example-org/second-map")
+          .defaultBranch("master")
+          .build();
+
+  private final MapIndexingJobDao jobDao;
+
+  MapIndexingJobDaoTest(Jdbi jdbi) {
+    jobDao = new MapIndexingJobDao(jdbi);
+  }
+
+  @Test
+  void runIsNotStartedTwiceWithinTheMinimumInterval() {
+    assertThat(jobDao.runStartedWithin(Duration.ofHours(1))).isFalse();
+    assertThat(jobDao.startRun(Duration.ofHours(1), List.of(FIRST_REPO), Map.of(), false))
+        .isPresent();
+    assertThat(jobDao.runStartedWithin(Duration.ofHours(1))).isTrue();
+    assertThat(jobDao.startRun(Duration.ofHours(1), List.of(SECOND_REPO), Map.of(), false))
+        .isEmpty();
+  }
+
+  @Test
+  void runIsStartedWithItsJobs() {
+    long runId = startRun(FIRST_REPO);
+
+    // the run is never seen without jobs, so it cannot be taken for finished
+    assertThat(jobDao.finishRuns()).isEmpty();
+    assertThat(jobDao.complete(jobDao.claim("node-a", Duration.ofMinutes(1), 3, 10), false))
+        .isOne();
+    assertThat(jobDao.finishRuns()).extracting(MapIndexingJobDao.FinishedRun::id).contains(runId);
+  }
+
+  @Test
+  void runStartedWithAListingChangeReportsIt() {
+    jobDao.startRun(Duration.ZERO, List.of(FIRST_REPO), Map.of(), true);
+
+    jobDao.complete(jobDao.claim("node-a", Duration.ofMinutes(1), 3, 10), false);
+
+    assertThat(jobDao.finishRuns())
+        .singleElement()
+        .extracting(MapIndexingJobDao.FinishedRun::listingChanged)
+        .isEqualTo(true);
+  }
+
+  @Test
+  void claimedJobCarriesTheQueuedListing() {
+    Instant headCommitDate = Instant.parse("2026-09-01T09:00:00Z");
+    jobDao.startRun(
+        Duration.ZERO,
+        List.of(FIRST_REPO),
+        Map.of(FIRST_REPO.getUri().toString(), headCommitDate),
+        false);
+
+    List<MapIndexingJobDao.Job> jobs = jobDao.claim("node-a", Duration.ofMinutes(1), 3, 10);
+
+    assertThat(jobs).hasSize(1);
+    assertThat(jobs.get(0).listing()).isEqualTo(FIRST_REPO);
+    assertThat(jobs.get(0).headCommitDate()).isEqualTo(headCommitDate);
+    assertThat(jobs.get(0).attempts()).isEqualTo(1);
+  }
+
+  @Test
+  void leasedJobsAreSkippedUntilTheLeaseExpires() {
+    startRun(FIRST_REPO, SECOND_REPO);
+
+    List<MapIndexingJobDao.Job> held = jobDao.claim("node-a", Duration.ofMinutes(1), 3, 1);
+    List<MapIndexingJobDao.Job> expired = jobDao.claim("node-b", Duration.ZERO, 3, 1);
+    List<MapIndexingJobDao.Job> reclaimed = jobDao.claim("node-c", Duration.ofMinutes(1), 3, 10);
+
+    assertThat(held.get(0).listing()).isEqualTo(FIRST_REPO);
+    assertThat(expired.get(0).listing()).isEqualTo(SECOND_REPO);
+    assertThat(reclaimed).hasSize(1);
+    assertThat(reclaimed.get(0).listing()).isEqualTo(SECOND_REPO);
+    assertThat(reclaimed.get(0).attempts()).isEqualTo(2);
+    assertThat(jobDao.claim("node-d", Duration.ofMinutes(1), 3, 10)).isEmpty();
+    // the worker that lost its lease can no longer finish the job
+    assertThat(jobDao.complete(expired, false)).isZero();
+    assertThat(jobDao.complete(reclaimed, false)).isOne();
+  }
+
+  @Test
+  void runFinishesOnceItsJobsAreDone() {
+    long runId = startRun(FIRST_REPO, SECOND_REPO);
+
+    jobDao.complete(jobDao.claim("node-a", Duration.ofMinutes(1), 3, 1), true);
+    assertThat(jobDao.finishRuns()).isEmpty();
+    jobDao.complete(jobDao.claim("node-a", Duration.ofMinutes(1), 3, 1), false);
+
+    List<MapIndexingJobDao.FinishedRun> finished = jobDao.finishRuns();
+    assertThat(finished).hasSize(1);
+    assertThat(finished.get(0).id()).isEqualTo(runId);
+    assertThat(finished.get(0).listingChanged()).isTrue();
+    assertThat(jobDao.finishRuns()).isEmpty();
+  }
+
+  @Test
+  void exhaustedJobsAreDropped() {
+    startRun(FIRST_REPO);
+
+    jobDao.retryLater(
+        jobDao.claim("node-a", Duration.ofMinutes(1), 2, 1).get(0), Duration.ZERO, true);
+    jobDao.retryLater(
+        jobDao.claim("node-a", Duration.ofMinutes(1), 2, 1).get(0), Duration.ZERO, true);
+
+    assertThat(jobDao.claim("node-a", Duration.ofMinutes(1), 2, 1)).isEmpty();
+    assertThat(jobDao.dropExhaustedJobs(2)).containsExactly(FIRST_REPO.getUri().toString());
+    assertThat(jobDao.finishRuns()).hasSize(1);
+  }
+
+  @Test
+  void jobRetriedLaterIsHeldBackUntilItsDelayPasses() {
+    startRun(FIRST_REPO);
+
+    jobDao.retryLater(
+        jobDao.claim("node-a", Duration.ofMinutes(1), 3, 1).get(0), Duration.ofMinutes(1), true);
+
+    assertThat(jobDao.claim("node-b", Duration.ofMinutes(1), 3, 1)).isEmpty();
+    assertThat(jobDao.dropExhaustedJobs(1)).isEmpty();
+  }
+
+  @Test
+  void jobPutOffWithoutCountingTheAttemptKeepsItsAttempts() {
+    startRun(FIRST_REPO);
+
+    jobDao.retryLater(
+        jobDao.claim("node-a", Duration.ofMinutes(1), 3, 1).get(0), Duration.ZERO, false);
+    List<MapIndexingJobDao.Job> reclaimed = jobDao.claim("node-b", Duration.ofMinutes(1), 3, 1);
+
+    assertThat(reclaimed).hasSize(1);
+    assertThat(reclaimed.get(0).attempts()).isEqualTo(1);
+  }
+
+  private long startRun(MapRepoListing... repos) {
+    return jobDao.startRun(Duration.ZERO, List.of(repos), Map.of(), false).orElseThrow();
+  }
+}
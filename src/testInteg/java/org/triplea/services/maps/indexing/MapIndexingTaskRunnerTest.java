@@ -1,11 +1,21 @@
 package org.triplea.services.maps.indexing;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.quarkus.test.junit.QuarkusTest;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.AllArgsConstructor;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.Test;
@@ -13,8 +23,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.triplea.DbOnlyExtension;
 import org.triplea.TestData;
+import org.triplea.http.client.github.BranchHead;
 import org.triplea.http.client.github.GithubClient;
 import org.triplea.http.client.github.MapRepoListing;
+import org.triplea.services.maps.indexing.tasks.TransientDownloadException;
 
 @AllArgsConstructor
 @QuarkusTest
@@ -36,10 +48,9 @@ class MapIndexingTaskRunnerTest {
     when(mockClient.getLatestCommitDate(anyString(), anyString()))
         .thenReturn(TestData.mapIndex.getLastCommitDate());
     MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
-    when(mapIndexer.apply(listing)).thenReturn(TestData.mapIndex);
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
 
-    MapIndexingTaskRunner runner =
-        new MapIndexingTaskRunner(new MapIndexDao(jdbi), mockClient, mapIndexer);
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
 
     MapIndexingTaskRunner.IndexingResult result = runner.index(listing);
 
@@ -63,11 +74,10 @@ class MapIndexingTaskRunnerTest {
     when(mockClient.getLatestCommitDate(anyString(), anyString()))
         .thenReturn(TestData.mapIndex.getLastCommitDate());
     MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
-    when(mapIndexer.apply(listing))
+    when(mapIndexer.apply(eq(listing), any()))
         .thenThrow(new MapIndexer.IndexingException(List.of("could not read map.yml")));
 
-    MapIndexingTaskRunner runner =
-        new MapIndexingTaskRunner(new MapIndexDao(jdbi), mockClient, mapIndexer);
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
 
     MapIndexingTaskRunner.IndexingResult result = runner.index(listing);
 
@@ -94,4 +104,419 @@ class MapIndexingTaskRunnerTest {
     assertThat(enabled).isFalse();
     assertThat(disableReason).isEqualTo("could not read map.yml");
   }
+
+  /// Once a repo has indexed cleanly, a listing that reports no change since is up to date without
+  /// any branch API call. A later push makes the runner check the branch again.
+  @Test
+  void unchangedRepoIsSkippedFromTheListingAlone() {
+    MapRepoListing listing =
+        TestData.mapRepoListing.toBuilder()
+            .pushedAt("2001-01-01T00:00:00Z")
+            .updatedAt("2000-06-01T00:00:00Z")
+            .build();
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
+
+    runner.index(listing);
+    MapIndexingTaskRunner.IndexingResult result = runner.index(listing);
+
+    assertThat(result.resultCode)
+        .isEqualTo(MapIndexingTaskRunner.IndexingResult.ResultCode.INDEXING_IS_UP_TO_DATE);
+    verify(mockClient, times(1)).getLatestCommitDate(anyString(), anyString());
+
+    runner.index(listing.toBuilder().pushedAt("2001-02-01T00:00:00Z").build());
+
+    verify(mockClient, times(2)).getLatestCommitDate(anyString(), anyString());
+  }
+
+  /// A repo whose default branch moved is indexed again from the new branch, even when the listing
+  /// shows no other change and the new branch's head is older than the indexed commit.
+  @Test
+  void defaultBranchSwitchIsIndexedAgain() {
+    MapRepoListing listing =
+        TestData.mapRepoListing.toBuilder().pushedAt("2001-01-01T00:00:00Z").build();
+    MapRepoListing switched = listing.toBuilder().defaultBranch("main").build();
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    when(mockClient.getLatestCommitDate(anyString(), eq("master")))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    when(mockClient.getLatestCommitDate(anyString(), eq("main")))
+        .thenReturn(TestData.mapIndex.getLastCommitDate().minus(Duration.ofDays(30)));
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
+    when(mapIndexer.apply(eq(switched), any()))
+        .thenReturn(
+            TestData.mapIndex.toBuilder()
+                .defaultBranch("main")
+                .downloadUri(MapIndexer.downloadUri(switched))
+                .lastCommitDate(TestData.mapIndex.getLastCommitDate().minus(Duration.ofDays(30)))
+                .build());
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
+    runner.index(listing);
+
+    MapIndexingTaskRunner.IndexingResult result = runner.index(switched);
+
+    assertThat(result.resultCode)
+        .isEqualTo(MapIndexingTaskRunner.IndexingResult.ResultCode.SUCCESSFULLY_INDEXED);
+    assertThat(
+            queryString(
+                "select default_branch from map_index where repo_url = ?",
+                listing.getUri().toString()))
+        .isEqualTo("main");
+    assertThat(runner.index(switched).resultCode)
+        .isEqualTo(MapIndexingTaskRunner.IndexingResult.ResultCode.INDEXING_IS_UP_TO_DATE);
+  }
+
+  /// A re-index requested through the webhook indexes the repo again even when nothing about its
+  /// head commit or listing changed, as after a `repository` event.
+  @Test
+  void reindexIgnoresAnUnchangedHeadCommit() {
+    MapRepoListing listing =
+        TestData.mapRepoListing.toBuilder().pushedAt("2001-01-01T00:00:00Z").build();
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
+    runner.index(listing);
+
+    MapIndexingTaskRunner.IndexingResult result = runner.reindex(listing);
+
+    assertThat(result.resultCode)
+        .isEqualTo(MapIndexingTaskRunner.IndexingResult.ResultCode.SUCCESSFULLY_INDEXED);
+    verify(mapIndexer, times(2)).apply(eq(listing), any());
+  }
+
+  /// With GraphQL available, a pass takes every repo's last commit date from the up-front branch
+  /// head query and makes no per-repo branch request.
+  @Test
+  void branchHeadsComeFromOneGraphqlQuery() {
+    MapRepoListing listing = TestData.mapRepoListing;
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    when(mockClient.listRepositories()).thenReturn(List.of(listing));
+    when(mockClient.supportsGraphql()).thenReturn(true);
+    when(mockClient.fetchDefaultBranchHeads())
+        .thenReturn(
+            List.of(
+                BranchHead.builder()
+                    .repoUri(listing.getUri().toString())
+                    .branch(listing.getDefaultBranch())
+                    .lastCommitDate(TestData.mapIndex.getLastCommitDate())
+                    .build()));
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
+
+    runner(mockClient, mapIndexer, () -> {}, 1).run();
+
+    verify(mapIndexer).apply(listing, TestData.mapIndex.getLastCommitDate());
+    verify(mockClient, never()).getLatestCommitDate(anyString(), anyString());
+  }
+
+  /// A full pass indexes every repo, several at a time, and reports the listing change once.
+  @Test
+  void runIndexesEveryRepoConcurrently() {
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    List<MapRepoListing> listings = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      MapIndex mapIndex =
+          TestData.mapIndex.toBuilder()
+              .mapName("map-" + i)
+              .mapRepoUri("http-repo-" + i)
+              .downloadUri("http-repo-" + i + "/archives/master.zip")
+              .build();
+      MapRepoListing listing =
+          MapRepoListing.builder().uri(mapIndex.getMapRepoUri()).defaultBranch("master").build();
+      listings.add(listing);
+      when(mapIndexer.apply(eq(listing), any())).thenReturn(mapIndex);
+    }
+    when(mockClient.listRepositories()).thenReturn(listings);
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    AtomicInteger listingChanges = new AtomicInteger();
+
+    runner(mockClient, mapIndexer, listingChanges::incrementAndGet, 3).run();
+
+    long indexed =
+        jdbi.withHandle(
+            handle ->
+                handle
+                    .createQuery("select count(*) from map_index where repo_url like 'http-repo-%'")
+                    .mapTo(Long.class)
+                    .one());
+    assertThat(indexed).isEqualTo(6);
+    assertThat(listingChanges.get()).isEqualTo(1);
+  }
+
+  /// Two nodes working on the same pass share its jobs: every repo is indexed exactly once, and
+  /// each node reports the listing changes it made once it runs out of jobs.
+  @Test
+  void nodesShareTheJobsOfOnePass() throws Exception {
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    List<MapRepoListing> listings = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      MapIndex mapIndex =
+          TestData.mapIndex.toBuilder()
+              .mapName("map-" + i)
+              .mapRepoUri("http-repo-" + i)
+              .downloadUri("http-repo-" + i + "/archives/master.zip")
+              .build();
+      MapRepoListing listing =
+          MapRepoListing.builder().uri(mapIndex.getMapRepoUri()).defaultBranch("master").build();
+      listings.add(listing);
+      when(mapIndexer.apply(eq(listing), any())).thenReturn(mapIndex);
+    }
+    when(mockClient.listRepositories()).thenReturn(listings);
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    AtomicInteger listingChanges = new AtomicInteger();
+    MapIndexingTaskRunner first =
+        runner(mockClient, mapIndexer, listingChanges::incrementAndGet, 2);
+    MapIndexingTaskRunner second =
+        runner(mockClient, mapIndexer, listingChanges::incrementAndGet, 2);
+
+    first.enqueueRun();
+    Thread otherNode = new Thread(second::processJobs);
+    otherNode.start();
+    first.processJobs();
+    otherNode.join();
+
+    for (MapRepoListing listing : listings) {
+      verify(mapIndexer, times(1)).apply(eq(listing), any());
+    }
+    assertThat(listingChanges.get()).isBetween(1, 2);
+  }
+
+  /// A node that works on jobs while another is starting a pass never sees the pass without its
+  /// jobs, so it cannot finish the pass before any repo was indexed.
+  @Test
+  void passIsNotFinishedWhileItsJobsAreBeingQueued() {
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    MapRepoListing listing = TestData.mapRepoListing;
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
+    AtomicInteger listingChanges = new AtomicInteger();
+    MapIndexingTaskRunner first =
+        runner(mockClient, mapIndexer, listingChanges::incrementAndGet, 1);
+    MapIndexingTaskRunner second = runner(mockClient, mapIndexer, () -> {}, 1);
+    List<String> finishedMeanwhile = new ArrayList<>();
+    when(mockClient.listRepositories())
+        .thenAnswer(
+            invocation -> {
+              second.processJobs();
+              finishedMeanwhile.add(
+                  queryString(
+                      "select count(*)::text from map_indexing_run where finished_at is not null"));
+              return List.of(listing);
+            });
+
+    first.run();
+
+    assertThat(finishedMeanwhile).isEqualTo(List.of("0"));
+    assertThat(
+            queryString(
+                "select count(*)::text from map_indexing_run"
+                    + " where finished_at is not null and listing_changed"))
+        .isEqualTo("1");
+    assertThat(listingChanges.get()).isEqualTo(1);
+  }
+
+  /// Maps indexed during a pass are published without waiting for the pass to finish, so a repo
+  /// whose job is still being retried does not hold them back.
+  @Test
+  void listingChangesArePublishedBeforeThePassFinishes() {
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    List<MapRepoListing> listings = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      MapRepoListing listing =
+          MapRepoListing.builder().uri("http-repo-" + i).defaultBranch("master").build();
+      listings.add(listing);
+      when(mapIndexer.apply(eq(listing), any()))
+          .thenReturn(
+              TestData.mapIndex.toBuilder()
+                  .mapName("map-" + i)
+                  .mapRepoUri(listing.getUri().toString())
+                  .downloadUri(MapIndexer.downloadUri(listing))
+                  .build());
+    }
+    when(mapIndexer.apply(eq(listings.get(0)), any()))
+        .thenThrow(
+            new TransientDownloadException(
+                URI.create(MapIndexer.downloadUri(listings.get(0))), 503));
+    when(mockClient.listRepositories()).thenReturn(listings);
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    AtomicInteger listingChanges = new AtomicInteger();
+
+    runner(mockClient, mapIndexer, listingChanges::incrementAndGet, 1).run();
+
+    assertThat(queryString("select count(*)::text from map_indexing_run where finished_at is null"))
+        .isEqualTo("1");
+    assertThat(listingChanges.get()).isEqualTo(1);
+  }
+
+  /// A job claimed by a node that died is indexed by another node once its lease has expired.
+  @Test
+  void expiredLeaseIsReclaimed() {
+    MapRepoListing listing = TestData.mapRepoListing;
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    when(mockClient.listRepositories()).thenReturn(List.of(listing));
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
+    MapIndexingJobDao jobDao = new MapIndexingJobDao(jdbi);
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
+
+    runner.enqueueRun();
+    assertThat(jobDao.claim("dead-node", Duration.ZERO, 3, 1).size()).isEqualTo(1);
+    runner.processJobs();
+
+    verify(mapIndexer).apply(eq(listing), any());
+    assertThat(jobDao.claim("any-node", Duration.ZERO, 3, 1).isEmpty()).isTrue();
+  }
+
+  /// A transient failure, such as a download timing out, leaves the map as it was and puts its
+  /// job off to be retried later, with the retry time on the repo's status.
+  @Test
+  void transientFailureKeepsTheMapAndRetriesLater() {
+    MapRepoListing listing = TestData.mapRepoListing;
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    when(mockClient.listRepositories()).thenReturn(List.of(listing));
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    when(mapIndexer.apply(eq(listing), any())).thenReturn(TestData.mapIndex);
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
+    runner.index(listing);
+
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate().plus(Duration.ofDays(1)));
+    when(mapIndexer.apply(eq(listing), any()))
+        .thenThrow(
+            new TransientDownloadException(
+                URI.create(MapIndexer.downloadUri(listing)), new IOException("timed out")));
+    runner.run();
+
+    String url = listing.getUri().toString();
+    assertThat(queryString("select enabled::text from map_index where repo_url = ?", url))
+        .isEqualTo("true");
+    assertThat(
+            queryString(
+                "select result_code || ' ' || (next_retry_at > now())"
+                    + " from map_indexing_status where repo_url = ?",
+                url))
+        .isEqualTo("TEMPORARY_ERROR true");
+    assertThat(queryString("select attempts::text from map_indexing_job where repo_url = ?", url))
+        .isEqualTo("1");
+  }
+
+  /// Once transient failures reach the circuit breaker's threshold, the node stops claiming jobs
+  /// and leaves the rest of the pass for later.
+  @Test
+  void circuitBreakerPausesThePass() {
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    List<MapRepoListing> listings = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      listings.add(MapRepoListing.builder().uri("http-repo-" + i).defaultBranch("master").build());
+    }
+    when(mockClient.listRepositories()).thenReturn(listings);
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenThrow(new RuntimeException("GitHub API request failed"));
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    IndexingCircuitBreaker circuitBreaker = new IndexingCircuitBreaker(2, Duration.ofMinutes(5));
+
+    runnerBuilder(mockClient, mapIndexer, () -> {}, 1).circuitBreaker(circuitBreaker).build().run();
+
+    verify(mockClient, times(2)).getLatestCommitDate(anyString(), anyString());
+    assertThat(circuitBreaker.isOpen()).isTrue();
+    assertThat(queryString("select count(*)::text from map_indexing_job")).isEqualTo("6");
+  }
+
+  /// Repos found up to date without asking GitHub do not count as successes, so failures that
+  /// come between them still open the circuit breaker.
+  @Test
+  void upToDateReposDoNotCloseTheCircuitBreaker() {
+    GithubClient mockClient = Mockito.mock(GithubClient.class);
+    MapIndexer mapIndexer = Mockito.mock(MapIndexer.class);
+    when(mockClient.getLatestCommitDate(anyString(), anyString()))
+        .thenReturn(TestData.mapIndex.getLastCommitDate());
+    MapIndexingTaskRunner runner = runner(mockClient, mapIndexer, () -> {}, 1);
+    List<MapRepoListing> listings = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      MapRepoListing listing =
+          MapRepoListing.builder()
+              .uri("http-repo-" + i)
+              .defaultBranch("master")
+              .pushedAt("2001-01-01T00:00:00Z")
+              .build();
+      listings.add(listing);
+      if (i % 2 == 0) {
+        when(mapIndexer.apply(eq(listing), any()))
+            .thenThrow(
+                new TransientDownloadException(
+                    URI.create(MapIndexer.downloadUri(listing)), new IOException("timed out")));
+      } else {
+        // indexed cleanly before the pass, so the pass finds it up to date from the listing
+        when(mapIndexer.apply(eq(listing), any()))
+            .thenReturn(
+                TestData.mapIndex.toBuilder()
+                    .mapName("map-" + i)
+                    .mapRepoUri(listing.getUri().toString())
+                    .downloadUri(MapIndexer.downloadUri(listing))
+                    .build());
+        runner.index(listing);
+      }
+    }
+    when(mockClient.listRepositories()).thenReturn(listings);
+    IndexingCircuitBreaker circuitBreaker = new IndexingCircuitBreaker(3, Duration.ofMinutes(5));
+
+    runnerBuilder(mockClient, mapIndexer, () -> {}, 1).circuitBreaker(circuitBreaker).build().run();
+
+    assertThat(circuitBreaker.isOpen()).isTrue();
+  }
+
+  @Test
+  void retryDelayGrowsExponentiallyWithJitterUpToACap() {
+    for (int i = 0; i < 100; i++) {
+      assertThat(MapIndexingTaskRunner.retryDelay(1))
+          .isBetween(Duration.ofSeconds(15), Duration.ofSeconds(45));
+      assertThat(MapIndexingTaskRunner.retryDelay(3))
+          .isBetween(Duration.ofSeconds(60), Duration.ofSeconds(180));
+      assertThat(MapIndexingTaskRunner.retryDelay(30))
+          .isBetween(Duration.ofMinutes(7).plusSeconds(30), Duration.ofMinutes(22).plusSeconds(30));
+    }
+  }
+
+  private String queryString(String sql, Object... args) {
+    return jdbi.withHandle(handle -> handle.select(sql, args).mapTo(String.class).one());
+  }
+
+  private MapIndexingTaskRunner runner(
+      GithubClient githubClient, MapIndexer mapIndexer, Runnable listener, int parallelism) {
+    return runnerBuilder(githubClient, mapIndexer, listener, parallelism).build();
+  }
+
+  private MapIndexingTaskRunner.MapIndexingTaskRunnerBuilder runnerBuilder(
+      GithubClient githubClient, MapIndexer mapIndexer, Runnable listener, int parallelism) {
+    return MapIndexingTaskRunner.builder()
+        .mapIndexDao(new MapIndexDao(jdbi))
+        .jobDao(new MapIndexingJobDao(jdbi))
+        .githubClient(githubClient)
+        .mapIndexer(mapIndexer)
+        .listingChangeListener(listener)
+        .parallelism(parallelism)
+        .batchSize(2)
+        .workerId("test-node")
+        .leaseDuration(Duration.ofMinutes(1))
+        .minRunInterval(Duration.ZERO);
+  }
 }
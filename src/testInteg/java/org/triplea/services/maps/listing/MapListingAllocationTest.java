@@ -0,0 +1,108 @@
+package org.triplea.services.maps.listing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.triplea.DbOnlyExtension;
+import org.triplea.http.client.lobby.maps.listing.MapListingResponse;
+
+/// Allocation benchmark for the uncached listing path: bytes allocated on the request thread to
+/// produce the full listing body, streaming ([StreamingMapListing]) versus materializing the
+/// maps and the encoded body first. Seeds a catalog of 500 maps with 5 attributes each and
+/// ~2 KB descriptions, roughly production scale.
+///
+/// Uses HotSpot's per-thread allocation counter, which is exact for the measuring thread; the
+/// assertion is deliberately loose so that JIT and driver noise cannot make it flaky.
+@QuarkusTest
+@ExtendWith(DbOnlyExtension.class)
+class MapListingAllocationTest {
+
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 10;
+
+  private final Jdbi jdbi;
+  private final MapListingDao mapListingDao;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  MapListingAllocationTest(final Jdbi jdbi) {
+    this.jdbi = jdbi;
+    this.mapListingDao = new MapListingDao(jdbi);
+  }
+
+  @BeforeEach
+  void seedCatalog() {
+    jdbi.useHandle(
+        handle ->
+            handle.execute(
+                """
+                insert into map_attribute (id, name, display_order)
+                select g, 'attribute-' || g, g from generate_series(1, 5) g;
+
+                insert into map_attribute_value (id, map_attribute_id, value, display_order)
+                select a * 10 + v, a, 'value-' || v, v
+                from generate_series(1, 5) a, generate_series(1, 3) v;
+
+                insert into map_index
+                    (map_name, repo_url, default_branch, download_url, preview_image_url,
+                     description, last_commit_date, download_size_bytes)
+                select
+                  'map-' || g, 'http-repo-' || g, 'master', 'http-repo-' || g || '/master.zip',
+                  'http-preview-' || g, repeat('<p>A map description.</p> ', 80),
+                  now() - g * interval '1 hour', 1000000
+                from generate_series(1, 500) g;
+
+                insert into map_index_attribute
+                    (map_index_id, map_attribute_id, map_attribute_value_id)
+                select m.id, a.id, a.id * 10 + 1 + m.id % 3
+                from map_index m cross join map_attribute a;
+                """));
+    mapListingDao.refreshListingView();
+  }
+
+  @Test
+  void streamingAllocatesLessThanMaterializing() throws IOException {
+    long materialized =
+        allocatedPerRound(
+            () ->
+                OutputStream.nullOutputStream()
+                    .write(
+                        objectMapper.writeValueAsBytes(
+                            MapListingResponse.builder()
+                                .maps(mapListingDao.fetchMapListings())
+                                .build())));
+    long streamed =
+        allocatedPerRound(
+            () ->
+                new StreamingMapListing(mapListingDao, objectMapper)
+                    .write(OutputStream.nullOutputStream()));
+
+    assertThat(streamed)
+        .as("bytes allocated per listing: streamed %,d vs materialized %,d", streamed, materialized)
+        .isLessThan(materialized);
+  }
+
+  private static long allocatedPerRound(IoAction action) throws IOException {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      action.run();
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      action.run();
+    }
+    return (threads.getCurrentThreadAllocatedBytes() - before) / MEASURED_ROUNDS;
+  }
+
+  @FunctionalInterface
+  private interface IoAction {
+    void run() throws IOException;
+  }
+}
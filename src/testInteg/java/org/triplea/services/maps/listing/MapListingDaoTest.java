@@ -8,6 +8,7 @@ import io.quarkus.test.junit.QuarkusTest;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,14 +21,20 @@ import org.triplea.http.client.lobby.maps.listing.MapTag;
 @ExtendWith(DBUnitExtension.class)
 class MapListingDaoTest {
 
+  private final Jdbi jdbi;
   private final MapListingDao mapListingDao;
 
   MapListingDaoTest(final Jdbi jdbi) {
+    this.jdbi = jdbi;
     this.mapListingDao = new MapListingDao(jdbi);
   }
 
+  // DBRider inserts each test's data set after @BeforeEach has run, so every test refreshes the
+  // map_listing view itself before reading from it.
+
   @Test
   void verifySelect() {
+    mapListingDao.refreshListingView();
     final var results = mapListingDao.fetchMapListings();
     assertThat(results).hasSize(1);
     final var mapDownloadListing = results.get(0);
@@ -49,8 +56,99 @@ class MapListingDaoTest {
   @Test
   @DataSet(value = "map_index_admin_disabled.yml", useSequenceFiltering = false)
   void adminDisabledMapIsExcluded() {
+    mapListingDao.refreshListingView();
     // The map is indexer-enabled but not admin-approved, so the listing (which requires both)
     // returns nothing.
     assertThat(mapListingDao.fetchMapListings()).isEmpty();
   }
+
+  @Test
+  @DataSet(value = "map_index_admin_disabled.yml", useSequenceFiltering = false)
+  void lastModifiedCoversUnlistedMaps() {
+    mapListingDao.refreshListingView();
+    // A map leaving the listing is itself a change, so its row still counts towards the
+    // listing's Last-Modified time.
+    assertThat(mapListingDao.fetchLastModified()).isPresent();
+  }
+
+  @Test
+  void nothingHasChangedSinceTheCurrentVersion() {
+    mapListingDao.refreshListingView();
+    long version = mapListingDao.fetchListingVersion();
+
+    assertThat(version).isPositive();
+    assertThat(mapListingDao.fetchMapListingsChangedSince(version)).isEmpty();
+    assertThat(mapListingDao.fetchRemovedSince(version)).isEmpty();
+  }
+
+  @Test
+  void renamingAnAttributeValueReportsTheMapAsChanged() {
+    mapListingDao.refreshListingView();
+    long version = mapListingDao.fetchListingVersion();
+
+    jdbi.useHandle(
+        handle ->
+            handle.execute("update map_attribute_value set value = 'classical' where id = 100"));
+    mapListingDao.refreshListingView();
+
+    assertThat(mapListingDao.fetchListingVersion()).isGreaterThan(version);
+    var changed = mapListingDao.fetchMapListingsChangedSince(version);
+    assertThat(changed).hasSize(1);
+    assertThat(changed.get(0).getMapTags())
+        .contains(MapTag.builder().name("era").value("classical").build());
+  }
+
+  @Test
+  void adminDisablingAMapReportsATombstone() {
+    mapListingDao.refreshListingView();
+    long version = mapListingDao.fetchListingVersion();
+
+    jdbi.useHandle(
+        handle ->
+            handle.execute(
+                """
+                update map_index set admin_enabled = false, admin_disable_reason = 'x'
+                where id = 10
+                """));
+    mapListingDao.refreshListingView();
+
+    assertThat(mapListingDao.fetchMapListingsChangedSince(version)).isEmpty();
+    assertThat(mapListingDao.fetchRemovedSince(version))
+        .containsExactly(
+            new MapListingTombstone(
+                "map-name",
+                "http-map-repo-url/archives/master.zip",
+                MapListingTombstone.Reason.ADMIN_DISABLED));
+  }
+
+  /// Versions are drawn at commit, so a transaction that wrote first but commits last still gets
+  /// the higher version, and a client that saw the other commit's version does not miss it.
+  @Test
+  void versionFollowsCommitOrder() {
+    mapListingDao.refreshListingView();
+    long version = mapListingDao.fetchListingVersion();
+
+    try (Handle first = jdbi.open();
+        Handle second = jdbi.open()) {
+      first.begin();
+      first.execute("update map_index set description = 'first' where id = 10");
+      second.useTransaction(
+          handle ->
+              handle.execute(
+                  """
+                  insert into map_index (map_name, repo_url, default_branch, description,
+                      download_url, preview_image_url, download_size_bytes, last_commit_date)
+                  values ('second', 'http-second', 'master', 'second', 'http-second/master.zip',
+                      'http-second-preview', 1, '2001-01-01')
+                  """));
+      mapListingDao.refreshListingView();
+      long secondVersion = mapListingDao.fetchListingVersion();
+      first.commit();
+      mapListingDao.refreshListingView();
+
+      assertThat(secondVersion).isGreaterThan(version);
+      assertThat(mapListingDao.fetchListingVersion()).isGreaterThan(secondVersion);
+      assertThat(mapListingDao.fetchMapListingsChangedSince(secondVersion)).hasSize(1);
+    }
+  }
 }
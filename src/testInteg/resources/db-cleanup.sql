@@ -5,3 +5,5 @@ delete from map_attribute_value;
 delete from map_attribute;
 delete from map_index;
 delete from map_indexing_status;
+delete from map_indexing_job;
+delete from map_indexing_run;